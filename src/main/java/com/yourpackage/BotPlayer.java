@@ -0,0 +1,59 @@
+package com.yourpackage;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// A seat the server fills itself. It sits, declares hokm and plays through the same Room commands as a connected
+// player, so the room validates and broadcasts its moves like anyone else's; only the decisions come from
+// MonteCarloBot, or from the strategy it was given, instead of a socket.
+public class BotPlayer extends Player {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(BotPlayer.class.getName());
+
+    // Not kept in snapshots: a bot restored from the game log plays on as MonteCarloBot.
+    private final transient Strategy strategy;
+
+    public BotPlayer(String name) {
+        this(name, null);
+    }
+
+    public BotPlayer(String name, Strategy strategy) {
+        super(name, null);
+        this.strategy = strategy;
+    }
+
+    void chooseHokm(Room room, MonteCarloBot.Position position) {
+        if (strategy != null) {
+            room.setHokmSuit(this, Card.suitName(strategy.chooseHokm(position)));
+            return;
+        }
+        MonteCarloBot.chooseHokm(position)
+                .thenAccept(suit -> room.setHokmSuit(this, Card.suitName(suit)))
+                .exceptionally(e -> {
+                    LOGGER.log(Level.SEVERE, getName() + " could not choose hokm", e);
+                    return null;
+                });
+    }
+
+    void playCard(Room room, MonteCarloBot.Position position) {
+        if (strategy != null) {
+            room.playCard(this, Card.fromOrdinal(strategy.chooseCard(position)));
+            return;
+        }
+        MonteCarloBot.chooseCard(position)
+                .thenAccept(card -> room.playCard(this, Card.fromOrdinal(card)))
+                .exceptionally(e -> {
+                    LOGGER.log(Level.SEVERE, getName() + " could not choose a card", e);
+                    return null;
+                });
+    }
+
+    // Decides for one seat from what that seat is allowed to know. Unlike MonteCarloBot it answers on the room's
+    // actor, so the move goes straight into the mailbox, and a slow strategy holds up the other rooms on that carrier.
+    // Called from many rooms at once, so implementations must be thread-safe.
+    public interface Strategy {
+        int chooseHokm(MonteCarloBot.Position position);
+
+        int chooseCard(MonteCarloBot.Position position);
+    }
+}
@@ -0,0 +1,181 @@
+package com.yourpackage;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Shows that a broadcast is encoded once however many clients receive it: sends the same stream of room broadcasts to
+// 1, 10 and 1,000 transports whose channels swallow the bytes, the way Room does it (encode, mark as sequenced, hand
+// the one Frame to every recipient). Encoding and the hand-off are timed apart, each with the bytes the broadcasting
+// thread allocated, so encoding shows up flat per broadcast and the hand-off as a small constant per recipient.
+// Broadcasts go out in rounds that fit a client queue, and each round is written out before the next one starts.
+// Encoding is reported for the fastest full round, since with few cores a writer finishing off the last round can
+// land in the middle of a timed one. Every audience runs once first to warm up.
+public class BroadcastBenchmark {
+    private static final int[] AUDIENCES = {1, 10, 1_000};
+    private static final int ROUND = 128;
+    private static final String[] NAMES = {"ali", "sara", "reza", "mina"};
+
+    public static void main(String[] args) {
+        int broadcasts = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        if (broadcasts < ROUND) {
+            System.err.println("Usage: BroadcastBenchmark [broadcasts, at least " + ROUND + "] [seed]");
+            System.exit(1);
+        }
+        for (int audience : AUDIENCES) {
+            run(audience, broadcasts, seed);
+        }
+        for (int audience : AUDIENCES) {
+            System.out.println(run(audience, broadcasts, seed));
+        }
+    }
+
+    public static Report run(int audience, int broadcasts, long seed) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Report report = new Report(audience, broadcasts);
+        List<ClientTransport> transports = new ArrayList<>();
+        List<NullChannel> channels = new ArrayList<>();
+        for (int i = 0; i < audience; i++) {
+            NullChannel channel = new NullChannel();
+            channels.add(channel);
+            transports.add(new ClientTransport("client" + i, channel, OverflowPolicy.DISCONNECT, ROUND));
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Frame[] frames = new Frame[ROUND];
+        long expectedBytes = 0;
+        report.encodeNanos = Long.MAX_VALUE;
+        try {
+            for (int sent = 0; sent < broadcasts; sent += ROUND) {
+                int count = Math.min(ROUND, broadcasts - sent);
+                int[] cards = new int[count];
+                for (int i = 0; i < count; i++) {
+                    cards[i] = random.nextInt(Cards.DECK_SIZE);
+                }
+
+                long allocated = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    frames[i] = ProtocolCodec.frame(Opcode.CARD_PLAYED).string(NAMES[cards[i] % NAMES.length])
+                            .card(Card.fromOrdinal(cards[i])).toFrame().sequenced();
+                }
+                if (count == ROUND) {
+                    report.encodeNanos = Math.min(report.encodeNanos, System.nanoTime() - start);
+                }
+                report.encodeBytes += threads.getCurrentThreadAllocatedBytes() - allocated;
+
+                allocated = threads.getCurrentThreadAllocatedBytes();
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    for (ClientTransport transport : transports) {
+                        transport.send(frames[i]);
+                    }
+                }
+                report.handOffNanos += System.nanoTime() - start;
+                report.handOffBytes += threads.getCurrentThreadAllocatedBytes() - allocated;
+
+                for (int i = 0; i < count; i++) {
+                    expectedBytes += frames[i].length();
+                }
+                awaitWritten(transports, sent + count);
+            }
+        } finally {
+            for (ClientTransport transport : transports) {
+                transport.close();
+            }
+        }
+        for (NullChannel channel : channels) {
+            if (channel.written != expectedBytes) {
+                throw new IllegalStateException("A client got " + channel.written + " bytes, not " + expectedBytes);
+            }
+            report.bytesWritten += channel.written;
+        }
+        return report;
+    }
+
+    private static void awaitWritten(List<ClientTransport> transports, long frames) {
+        for (ClientTransport transport : transports) {
+            while (transport.getFramesWritten() < frames) {
+                if (!transport.isOpen()) {
+                    throw new IllegalStateException(transport.getName() + " was disconnected: " + transport);
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // Takes everything it is given. Only the transport's writer writes to it, and ClientTransport publishes the count
+    // through its volatile framesWritten.
+    private static final class NullChannel implements GatheringByteChannel {
+        private long written;
+
+        @Override
+        public long write(ByteBuffer[] buffers, int offset, int length) {
+            long total = 0;
+            for (int i = offset; i < offset + length; i++) {
+                total += write(buffers[i]);
+            }
+            return total;
+        }
+
+        @Override
+        public long write(ByteBuffer[] buffers) {
+            return write(buffers, 0, buffers.length);
+        }
+
+        @Override
+        public int write(ByteBuffer buffer) {
+            int remaining = buffer.remaining();
+            buffer.position(buffer.limit());
+            written += remaining;
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static class Report {
+        private final int audience;
+        private final int broadcasts;
+        // For the fastest round of ROUND broadcasts.
+        private long encodeNanos;
+        private long encodeBytes;
+        private long handOffNanos;
+        private long handOffBytes;
+        private long bytesWritten;
+
+        private Report(int audience, int broadcasts) {
+            this.audience = audience;
+            this.broadcasts = broadcasts;
+        }
+
+        public double getEncodeNanos() {
+            return (double) encodeNanos / ROUND;
+        }
+
+        public double getEncodeBytes() {
+            return (double) encodeBytes / broadcasts;
+        }
+
+        @Override
+        public String toString() {
+            long deliveries = (long) broadcasts * audience;
+            return String.format("%,5d recipients: encode %4.0fns, %4.0f B allocated per broadcast | hand-off %4.0fns, "
+                            + "%4.1f B allocated per recipient | %,.1f MB written", audience, getEncodeNanos(),
+                    getEncodeBytes(), (double) handOffNanos / deliveries, (double) handOffBytes / deliveries,
+                    bytesWritten / 1e6);
+        }
+    }
+}
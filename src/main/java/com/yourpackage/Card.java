@@ -2,32 +2,91 @@ package com.yourpackage;
 
 import java.io.Serializable;
 
-public class Card implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private final String suit;
-    private final String rank;
-    private final int power;
+// A view over a card ordinal (see Cards). There is exactly one instance per card, so fromOrdinal never allocates and
+// cards can be compared by identity.
+public final class Card implements Serializable {
+    private static final long serialVersionUID = 2L;
+    private static final String[] SUITS = {"CLUBS", "DIAMONDS", "HEARTS", "SPADES"};
+    private static final String[] RANKS = {"TWO", "THREE", "FOUR", "FIVE", "SIX", "SEVEN", "EIGHT", "NINE", "TEN", "JACK", "QUEEN", "KING", "ACE"};
+    private static final Card[] CARDS = new Card[Cards.DECK_SIZE];
 
-    public Card(String suit, String rank, int power) {
-        this.suit = suit;
-        this.rank = rank;
-        this.power = power;
+    static {
+        for (int ordinal = 0; ordinal < CARDS.length; ordinal++) {
+            CARDS[ordinal] = new Card(ordinal);
+        }
+    }
+
+    private final int ordinal;
+
+    private Card(int ordinal) {
+        this.ordinal = ordinal;
     }
 
     public String getSuit() {
-        return suit;
+        return SUITS[Cards.suit(ordinal)];
     }
 
     public String getRank() {
-        return rank;
+        return RANKS[Cards.rank(ordinal)];
     }
 
     public int getPower() {
-        return power;
+        return Cards.rank(ordinal) + 2;
+    }
+
+    // Position in a fresh deck: suits in SUITS order, thirteen ranks each from TWO to ACE.
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public static Card fromOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= Cards.DECK_SIZE) {
+            throw new IllegalArgumentException("Invalid card ordinal " + ordinal);
+        }
+        return CARDS[ordinal];
+    }
+
+    // Parses the SUIT-RANK form produced by toString.
+    public static Card fromString(String text) {
+        int dash = text.indexOf('-');
+        String rank = text.substring(dash + 1);
+        for (int i = 0; i < RANKS.length; i++) {
+            if (RANKS[i].equals(rank)) {
+                return fromOrdinal(Cards.card(suitIndex(text.substring(0, dash)), i));
+            }
+        }
+        throw new IllegalArgumentException("Unknown card " + text);
+    }
+
+    public static String suitName(int suit) {
+        return SUITS[suit];
+    }
+
+    public static int suitIndex(String suit) {
+        for (int i = 0; i < SUITS.length; i++) {
+            if (SUITS[i].equalsIgnoreCase(suit)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown suit " + suit);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Card other && other.ordinal == ordinal;
+    }
+
+    @Override
+    public int hashCode() {
+        return ordinal;
+    }
+
+    private Object readResolve() {
+        return fromOrdinal(ordinal);
     }
 
     @Override
     public String toString() {
-        return suit + "-" + rank;
+        return getSuit() + "-" + getRank();
     }
 }
@@ -0,0 +1,87 @@
+package com.yourpackage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Primitive card core. A card is its ordinal 0-51 (suit * 13 + rank, rank 0 being TWO and 12 ACE) and a set of cards
+// is a long with bit n set for ordinal n, so a suit is a 13-bit lane of the mask. Nothing in here allocates except
+// the List conversions kept for code that still works with Card objects.
+public final class Cards {
+    public static final int DECK_SIZE = 52;
+    public static final int SUIT_SIZE = 13;
+    public static final int SUIT_COUNT = 4;
+    public static final long FULL_DECK = (1L << DECK_SIZE) - 1;
+    private static final long SUIT_LANE = (1L << SUIT_SIZE) - 1;
+
+    private Cards() {
+    }
+
+    public static int suit(int card) {
+        return card / SUIT_SIZE;
+    }
+
+    public static int rank(int card) {
+        return card % SUIT_SIZE;
+    }
+
+    public static int card(int suit, int rank) {
+        return suit * SUIT_SIZE + rank;
+    }
+
+    public static long mask(int card) {
+        return 1L << card;
+    }
+
+    public static long suitMask(int suit) {
+        return SUIT_LANE << (suit * SUIT_SIZE);
+    }
+
+    public static long inSuit(long cards, int suit) {
+        return cards & suitMask(suit);
+    }
+
+    public static boolean contains(long cards, int card) {
+        return (cards & mask(card)) != 0;
+    }
+
+    public static int count(long cards) {
+        return Long.bitCount(cards);
+    }
+
+    // Highest card in the set by ordinal, which within a single suit is the highest rank; -1 when empty.
+    public static int highest(long cards) {
+        return cards == 0 ? -1 : 63 - Long.numberOfLeadingZeros(cards);
+    }
+
+    public static int lowest(long cards) {
+        return cards == 0 ? -1 : Long.numberOfTrailingZeros(cards);
+    }
+
+    // Whether challenger takes the trick from the card currently winning it. Only a trump or a higher card of the
+    // winning card's suit can beat it; trumpSuit may be -1 before the hokm is chosen.
+    public static boolean beats(int challenger, int winning, int trumpSuit) {
+        int challengerSuit = suit(challenger);
+        int winningSuit = suit(winning);
+        if (challengerSuit == winningSuit) {
+            return challenger > winning;
+        }
+        return challengerSuit == trumpSuit;
+    }
+
+    public static long maskOf(List<Card> cards) {
+        long mask = 0L;
+        for (Card card : cards) {
+            mask |= mask(card.getOrdinal());
+        }
+        return mask;
+    }
+
+    public static List<Card> toList(long cards) {
+        List<Card> list = new ArrayList<>(count(cards));
+        while (cards != 0) {
+            list.add(Card.fromOrdinal(Long.numberOfTrailingZeros(cards)));
+            cards &= cards - 1;
+        }
+        return list;
+    }
+}
@@ -2,7 +2,7 @@ package com.yourpackage;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.ObjectOutputStream;
+import java.io.DataOutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -10,11 +10,11 @@ public class ChatPanel extends JPanel {
     private static final Logger LOGGER = Logger.getLogger(ChatPanel.class.getName());
     private JTextArea chatArea;
     private JTextField chatInput;
-    private ObjectOutputStream out;
+    private DataOutputStream out;
     private String username;
     private String roomCreator;
 
-    public ChatPanel(String username, String roomCreator, ObjectOutputStream out) {
+    public ChatPanel(String username, String roomCreator, DataOutputStream out) {
         this.username = username;
         this.roomCreator = roomCreator;
         this.out = out;
@@ -37,16 +37,15 @@ public class ChatPanel extends JPanel {
 
     private void sendMessage() {
         String message = chatInput.getText();
-        sendRequest("CHAT:" + roomCreator + ":" + username + ":" + message);
+        sendRequest(ProtocolCodec.frame(Opcode.CHAT).string(roomCreator).string(username).string(message).build());
         chatInput.setText("");
     }
 
-    private void sendRequest(String request) {
+    private void sendRequest(byte[] request) {
         try {
-            out.writeObject(request);
-            out.flush();
+            ProtocolCodec.write(out, request);
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error sending request: " + request, e);
+            LOGGER.log(Level.SEVERE, "Error sending chat message", e);
         }
     }
 
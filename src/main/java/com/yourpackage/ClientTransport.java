@@ -0,0 +1,351 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Each client gets its own bounded queue and a writer task that drains it, so a stalled socket only ever blocks its
+// own writer and never the room that produced the frames. Writers share a fixed pool, and a write that makes no
+// progress within the write timeout disconnects its client, so stalled clients can hold at most a pool thread each
+// and only for that long.
+public class ClientTransport {
+    private static final Logger LOGGER = Logger.getLogger(ClientTransport.class.getName());
+    private static final int QUEUE_DEPTH = Integer.getInteger("hokm.client.queueDepth", 256);
+    private static final int WRITER_THREADS = Integer.getInteger("hokm.client.writerThreads",
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    private static final long WRITE_TIMEOUT_MS = Long.getLong("hokm.client.writeTimeoutMs", 5000);
+    // A blocking channel only returns once it has written everything it was given, so a batch goes out in calls of
+    // about this much and the write timeout is re-armed after each one.
+    private static final int WRITE_CHUNK_BYTES = 64 * 1024;
+    private static final AtomicInteger WRITER_COUNT = new AtomicInteger();
+    private static final ExecutorService WRITERS = Executors.newFixedThreadPool(WRITER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "client-writer-" + WRITER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ScheduledExecutorService WRITE_TIMEOUTS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "client-write-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final WritableByteChannel channel;
+    private final OverflowPolicy policy;
+    private final int capacity;
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+
+    // Guarded by queue.
+    private boolean writerScheduled;
+    private boolean closeWhenDrained;
+    private boolean closed;
+    private int peakQueueDepth;
+    private long droppedFrames;
+    private long coalescedFrames;
+
+    private volatile long blockedNanos;
+    private volatile long framesWritten;
+    // Last sequence number written, and the timeout for the write in progress; only the writer touches them.
+    private long sequence;
+    private ScheduledFuture<?> writeTimeout;
+
+    public ClientTransport(String name, Socket socket) throws IOException {
+        this(name, socket.getChannel() != null ? socket.getChannel() : Channels.newChannel(socket.getOutputStream()),
+                OverflowPolicy.fromProperty(), QUEUE_DEPTH);
+    }
+
+    public ClientTransport(String name, OutputStream out) {
+        this(name, Channels.newChannel(out), OverflowPolicy.fromProperty(), QUEUE_DEPTH);
+    }
+
+    public ClientTransport(String name, WritableByteChannel channel, OverflowPolicy policy, int capacity) {
+        this.name = name;
+        this.channel = channel;
+        this.policy = policy;
+        this.capacity = capacity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isOpen() {
+        synchronized (queue) {
+            return !closed;
+        }
+    }
+
+    public boolean send(Frame frame) {
+        return send(List.of(frame));
+    }
+
+    // Never blocks. Returns false once the client has been disconnected, either earlier or because this batch
+    // overflowed a queue the policy could not make room in.
+    public boolean send(List<Frame> frames) {
+        synchronized (queue) {
+            if (closed || closeWhenDrained) {
+                return false;
+            }
+            for (Frame frame : frames) {
+                if (!offer(frame)) {
+                    LOGGER.warning("Outbound queue for " + name + " overflowed with " + policy + ", disconnecting");
+                    closeLocked();
+                    return false;
+                }
+            }
+            peakQueueDepth = Math.max(peakQueueDepth, queue.size());
+            scheduleWriter();
+            return true;
+        }
+    }
+
+    // Frames already queued are still delivered; the channel is closed once the writer has sent them.
+    public void closeWhenDrained() {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closeWhenDrained = true;
+            if (queue.isEmpty() && !writerScheduled) {
+                closeLocked();
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (queue) {
+            closeLocked();
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public int getPeakQueueDepth() {
+        synchronized (queue) {
+            return peakQueueDepth;
+        }
+    }
+
+    public long getDroppedFrames() {
+        synchronized (queue) {
+            return droppedFrames;
+        }
+    }
+
+    public long getCoalescedFrames() {
+        synchronized (queue) {
+            return coalescedFrames;
+        }
+    }
+
+    public long getFramesWritten() {
+        return framesWritten;
+    }
+
+    // Total time the writer has spent inside socket writes, which is where a slow client shows up.
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [queued=" + getQueueDepth() + ", peak=" + getPeakQueueDepth() + ", dropped=" + getDroppedFrames()
+                + ", coalesced=" + getCoalescedFrames() + ", written=" + framesWritten
+                + ", blockedMs=" + blockedNanos / 1_000_000 + "]";
+    }
+
+    private boolean offer(Frame frame) {
+        if (queue.size() < capacity) {
+            queue.add(frame);
+            return true;
+        }
+        Opcode opcode = frame.getOpcode();
+        if (policy.canCoalesce(opcode) && removeLast(opcode)) {
+            coalescedFrames++;
+            queue.add(frame);
+            return true;
+        }
+        if (policy.canDrop(opcode)) {
+            droppedFrames++;
+            return true;
+        }
+        if (policy != OverflowPolicy.DISCONNECT && removeOldestNonCritical()) {
+            droppedFrames++;
+            queue.add(frame);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean removeLast(Opcode opcode) {
+        Iterator<Frame> frames = queue.descendingIterator();
+        while (frames.hasNext()) {
+            if (frames.next().getOpcode() == opcode) {
+                frames.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean removeOldestNonCritical() {
+        Iterator<Frame> frames = queue.iterator();
+        while (frames.hasNext()) {
+            if (policy.canDrop(frames.next().getOpcode())) {
+                frames.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleWriter() {
+        if (!writerScheduled && !queue.isEmpty()) {
+            writerScheduled = true;
+            WRITERS.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<Frame> batch;
+            synchronized (queue) {
+                if (closed || queue.isEmpty()) {
+                    writerScheduled = false;
+                    if (closeWhenDrained) {
+                        closeLocked();
+                    }
+                    return;
+                }
+                batch = new ArrayList<>(queue);
+                queue.clear();
+            }
+            try {
+                write(batch);
+            } catch (IOException e) {
+                synchronized (queue) {
+                    // A write cut off by the write timeout has already been reported.
+                    if (!closed) {
+                        LOGGER.log(Level.WARNING, "Error writing to " + name, e);
+                    }
+                    writerScheduled = false;
+                    closeLocked();
+                }
+                return;
+            }
+        }
+    }
+
+    // A batch goes out as gathering writes over the shared frame buffers when the channel supports it. Broadcasts get
+    // this client's next sequence number here, in a header of their own ahead of the shared payload.
+    private void write(List<Frame> frames) throws IOException {
+        long start = System.nanoTime();
+        writeTimeout = armWriteTimeout();
+        try {
+            writeAll(frames);
+        } finally {
+            writeTimeout.cancel(false);
+        }
+        blockedNanos += System.nanoTime() - start;
+        framesWritten += frames.size();
+    }
+
+    private void writeAll(List<Frame> frames) throws IOException {
+        List<ByteBuffer> parts = new ArrayList<>(frames.size() + 8);
+        for (Frame frame : frames) {
+            if (frame.isSequenced()) {
+                sequence = (sequence + 1) & 0xFFFFFFFFL;
+                if (sequence == 0) {
+                    sequence = 1;
+                }
+                parts.add(frame.header(sequence));
+                parts.add(frame.payload());
+            } else {
+                parts.add(frame.buffer());
+            }
+        }
+        ByteBuffer[] buffers = parts.toArray(new ByteBuffer[0]);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        if (channel instanceof GatheringByteChannel gathering) {
+            int first = 0;
+            while (remaining > 0) {
+                while (!buffers[first].hasRemaining()) {
+                    first++;
+                }
+                int end = first + 1;
+                long chunk = buffers[first].remaining();
+                while (end < buffers.length && chunk + buffers[end].remaining() <= WRITE_CHUNK_BYTES) {
+                    chunk += buffers[end++].remaining();
+                }
+                long written = gathering.write(buffers, first, end - first);
+                remaining -= written;
+                if (written > 0 && remaining > 0) {
+                    madeProgress();
+                }
+            }
+        } else {
+            long sinceArmed = 0;
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    long written = channel.write(buffer);
+                    remaining -= written;
+                    sinceArmed += written;
+                }
+                if (sinceArmed >= WRITE_CHUNK_BYTES && remaining > 0) {
+                    madeProgress();
+                    sinceArmed = 0;
+                }
+            }
+        }
+    }
+
+    // Closing the channel is the only way to get a blocked write back, and it fails with an IOException.
+    private ScheduledFuture<?> armWriteTimeout() {
+        return WRITE_TIMEOUTS.schedule(() -> {
+            LOGGER.warning("Write to " + name + " made no progress for " + WRITE_TIMEOUT_MS + "ms, disconnecting");
+            close();
+        }, WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // A client that is slow but still reading gets a fresh timeout for the rest of the batch.
+    private void madeProgress() {
+        writeTimeout.cancel(false);
+        writeTimeout = armWriteTimeout();
+    }
+
+    private void closeLocked() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing transport for " + name, e);
+        }
+    }
+}
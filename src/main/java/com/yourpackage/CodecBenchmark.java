@@ -0,0 +1,236 @@
+package com.yourpackage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Compares ProtocolCodec frames with the string framing they replaced, where each message was "OPCODE:field:field"
+// sent with ObjectOutputStream.writeObject and taken apart on the client with startsWith and split. Each message kind
+// is encoded into one stream and decoded back into its fields both ways, and reported as bytes on the wire and
+// nanoseconds per message. The old way gets a fresh object stream every 1,000 messages, as if each were a connection,
+// so its per-stream header is counted once per connection, not per message. Every kind runs once first to warm up.
+public class CodecBenchmark {
+    private static final int MESSAGES_PER_STREAM = 1_000;
+    private static final List<String> TEAM_A = List.of("ali", "reza");
+    private static final List<String> TEAM_B = List.of("sara", "mina");
+    private static final String[] NAMES = {"ali", "sara", "reza", "mina"};
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        if (messages < MESSAGES_PER_STREAM) {
+            System.err.println("Usage: CodecBenchmark [messages per kind, at least " + MESSAGES_PER_STREAM + "] [seed]");
+            System.exit(1);
+        }
+        for (Sample sample : Sample.values()) {
+            run(sample, messages, seed);
+        }
+        for (Sample sample : Sample.values()) {
+            System.out.println(run(sample, messages, seed));
+        }
+    }
+
+    public static Report run(Sample sample, int messages, long seed) throws IOException, ClassNotFoundException {
+        Report report = new Report(sample, messages);
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] values = new int[messages];
+        long[] hands = new long[messages];
+        Deck deck = new Deck(random);
+        for (int i = 0; i < messages; i++) {
+            values[i] = random.nextInt(Cards.DECK_SIZE);
+            deck.shuffle(random);
+            hands[i] = deck.deal(Cards.SUIT_SIZE);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            ProtocolCodec.write(out, sample.frame(values[i], hands[i]));
+        }
+        report.frameEncodeNanos = System.nanoTime() - start;
+        report.frameBytes = bytes.size();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            checksum += sample.readFrame(ProtocolCodec.read(in));
+        }
+        report.frameDecodeNanos = System.nanoTime() - start;
+
+        List<byte[]> streams = new ArrayList<>();
+        long oldChecksum = 0;
+        start = System.nanoTime();
+        for (int first = 0; first < messages; first += MESSAGES_PER_STREAM) {
+            bytes = new ByteArrayOutputStream();
+            ObjectOutputStream objects = new ObjectOutputStream(bytes);
+            for (int i = first; i < Math.min(messages, first + MESSAGES_PER_STREAM); i++) {
+                objects.writeObject(sample.string(values[i], hands[i]));
+                objects.flush();
+            }
+            streams.add(bytes.toByteArray());
+        }
+        report.stringEncodeNanos = System.nanoTime() - start;
+        for (byte[] stream : streams) {
+            report.stringBytes += stream.length;
+        }
+
+        start = System.nanoTime();
+        for (int first = 0, s = 0; first < messages; first += MESSAGES_PER_STREAM, s++) {
+            ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(streams.get(s)));
+            for (int i = first; i < Math.min(messages, first + MESSAGES_PER_STREAM); i++) {
+                oldChecksum += sample.readString((String) objects.readObject());
+            }
+        }
+        report.stringDecodeNanos = System.nanoTime() - start;
+        if (checksum != oldChecksum) {
+            throw new IllegalStateException(sample + " decoded differently: " + checksum + " and " + oldChecksum);
+        }
+        return report;
+    }
+
+    // Representative room messages, each written and read both ways. The read methods return a number folded from
+    // every field, so both decoders must get the same values out and neither can be optimized away.
+    public enum Sample {
+        CARD_PLAYED {
+            byte[] frame(int value, long hand) {
+                return ProtocolCodec.frame(Opcode.CARD_PLAYED).string(NAMES[value % 4]).card(Card.fromOrdinal(value))
+                        .build();
+            }
+
+            long readFrame(ProtocolCodec.Message message) {
+                return message.readString().hashCode() + message.readCard().getOrdinal();
+            }
+
+            String string(int value, long hand) {
+                return "CARD_PLAYED:" + NAMES[value % 4] + ":" + Card.fromOrdinal(value);
+            }
+
+            long readString(String message) {
+                String[] parts = message.split(":");
+                return parts[1].hashCode() + Card.fromString(parts[2]).getOrdinal();
+            }
+        },
+        DEAL_CARDS {
+            byte[] frame(int value, long hand) {
+                return ProtocolCodec.frame(Opcode.DEAL_CARDS).hand(hand).build();
+            }
+
+            long readFrame(ProtocolCodec.Message message) {
+                return message.readHandMask();
+            }
+
+            String string(int value, long hand) {
+                return "DEAL_CARDS:" + Cards.toList(hand);
+            }
+
+            long readString(String message) {
+                long hand = 0;
+                for (String card : message.substring("DEAL_CARDS:[".length(), message.length() - 1).split(", ")) {
+                    hand |= Cards.mask(Card.fromString(card).getOrdinal());
+                }
+                return hand;
+            }
+        },
+        SCORE_UPDATE {
+            byte[] frame(int value, long hand) {
+                return ProtocolCodec.frame(Opcode.SCORE_UPDATE).number(value % 7).number(value / 7).build();
+            }
+
+            long readFrame(ProtocolCodec.Message message) {
+                return message.readNumber() * 31L + message.readNumber();
+            }
+
+            String string(int value, long hand) {
+                return "SCORE_UPDATE:Team A:" + value % 7 + ":Team B:" + value / 7;
+            }
+
+            long readString(String message) {
+                String[] parts = message.split(":");
+                return Integer.parseInt(parts[2]) * 31L + Integer.parseInt(parts[4]);
+            }
+        },
+        GAME_STARTING {
+            byte[] frame(int value, long hand) {
+                return ProtocolCodec.frame(Opcode.GAME_STARTING).strings(TEAM_A).strings(TEAM_B).build();
+            }
+
+            long readFrame(ProtocolCodec.Message message) {
+                return message.readStrings().hashCode() * 31L + message.readStrings().hashCode();
+            }
+
+            String string(int value, long hand) {
+                return "START_GAME:" + String.join(",", TEAM_A) + ":" + String.join(",", TEAM_B);
+            }
+
+            long readString(String message) {
+                String[] parts = message.split(":");
+                return List.of(parts[1].split(",")).hashCode() * 31L + List.of(parts[2].split(",")).hashCode();
+            }
+        },
+        CHAT_MESSAGE {
+            byte[] frame(int value, long hand) {
+                return ProtocolCodec.frame(Opcode.CHAT_MESSAGE).string(NAMES[value % 4]).string(text(value)).build();
+            }
+
+            long readFrame(ProtocolCodec.Message message) {
+                return message.readString().hashCode() * 31L + message.readString().hashCode();
+            }
+
+            String string(int value, long hand) {
+                return "CHAT:" + NAMES[value % 4] + ": " + text(value);
+            }
+
+            long readString(String message) {
+                String chat = message.substring("CHAT:".length());
+                int colon = chat.indexOf(": ");
+                return chat.substring(0, colon).hashCode() * 31L + chat.substring(colon + 2).hashCode();
+            }
+        };
+
+        abstract byte[] frame(int value, long hand);
+
+        abstract long readFrame(ProtocolCodec.Message message);
+
+        abstract String string(int value, long hand);
+
+        abstract long readString(String message);
+
+        private static String text(int value) {
+            return "good game, that was trick " + value;
+        }
+    }
+
+    public static class Report {
+        private final Sample sample;
+        private final int messages;
+        private long frameBytes;
+        private long frameEncodeNanos;
+        private long frameDecodeNanos;
+        private long stringBytes;
+        private long stringEncodeNanos;
+        private long stringDecodeNanos;
+
+        private Report(Sample sample, int messages) {
+            this.sample = sample;
+            this.messages = messages;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-13s frames %5.1f B, encode %5.0fns, decode %5.0fns | strings %5.1f B, "
+                            + "encode %5.0fns, decode %5.0fns", sample, (double) frameBytes / messages,
+                    (double) frameEncodeNanos / messages, (double) frameDecodeNanos / messages,
+                    (double) stringBytes / messages, (double) stringEncodeNanos / messages,
+                    (double) stringDecodeNanos / messages);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.yourpackage;
+
+import java.util.SplittableRandom;
+
+// One deal of a game: the deck order and the seat that becomes master. Deal n of a game depends only on the game's
+// seed and n, so any deal can be recomputed for a replay, or computed ahead of time on another thread, and always
+// come out the same.
+public final class Deal {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // Cards each seat gets before the master picks hokm; the rest of the hand follows once it is chosen.
+    public static final int INITIAL_CARDS = 5;
+
+    private final long seed;
+    private final int index;
+    private final int[] order;
+    private final int masterSeat;
+
+    private Deal(long seed, int index, int[] order, int masterSeat) {
+        this.seed = seed;
+        this.index = index;
+        this.order = order;
+        this.masterSeat = masterSeat;
+    }
+
+    public static Deal generate(long seed, int index, int seats) {
+        SplittableRandom random = new SplittableRandom(seed + index * GOLDEN_GAMMA);
+        int[] order = new int[Cards.DECK_SIZE];
+        Deck.shuffle(order, random);
+        return new Deal(seed, index, order, random.nextInt(seats));
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getMasterSeat() {
+        return masterSeat;
+    }
+
+    public Deck toDeck() {
+        return new Deck(order);
+    }
+
+    // Every seat's full hand, dealt the way Room deals them: INITIAL_CARDS each in seat order, then the rest.
+    public long[] hands(int seats) {
+        Deck deck = toDeck();
+        long[] hands = new long[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            hands[seat] = deck.deal(INITIAL_CARDS);
+        }
+        for (int seat = 0; seat < seats; seat++) {
+            hands[seat] |= deck.deal(Cards.SUIT_SIZE - Cards.count(hands[seat]));
+        }
+        return hands;
+    }
+}
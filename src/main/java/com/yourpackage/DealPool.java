@@ -0,0 +1,47 @@
+package com.yourpackage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Computes upcoming deals on a background thread so a room never shuffles on its own turn path. Since a deal is a
+// pure function of (seed, index), a room that needs a deal before it is ready just computes the same one itself.
+public final class DealPool {
+    private static final boolean PREFETCH = Boolean.parseBoolean(System.getProperty("hokm.deal.prefetch", "true"));
+    private static final ExecutorService DEALER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deal-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DealPool() {
+    }
+
+    // Returns null when prefetching is turned off.
+    public static CompletableFuture<Deal> prefetch(long seed, int index, int seats) {
+        if (!PREFETCH) {
+            return null;
+        }
+        return CompletableFuture.supplyAsync(() -> Deal.generate(seed, index, seats), DEALER);
+    }
+
+    // Takes the prefetched deal if it is ready, otherwise deals inline; both give the same result.
+    public static Deal take(CompletableFuture<Deal> prefetched, long seed, int index, int seats) {
+        Deal deal = prefetched == null ? null : prefetched.getNow(null);
+        if (deal == null || deal.getSeed() != seed || deal.getIndex() != index) {
+            deal = Deal.generate(seed, index, seats);
+        }
+        return deal;
+    }
+
+    // Bulk mode for load tests: the first count deals of a game, generated up front.
+    public static List<Deal> generate(long seed, int count, int seats) {
+        List<Deal> deals = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            deals.add(Deal.generate(seed, index, seats));
+        }
+        return deals;
+    }
+}
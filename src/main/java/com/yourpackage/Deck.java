@@ -1,58 +1,71 @@
 package com.yourpackage;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
+// The 52 ordinals shuffled in place; dealing just moves a cursor through the array.
 public class Deck implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private List<Card> cards;
+    private static final long serialVersionUID = 2L;
+    private final int[] cards = new int[Cards.DECK_SIZE];
+    private int position;
 
     public Deck() {
-        cards = new ArrayList<>();
-        initializeDeck();
-        shuffle();
-    }
-
-    private void initializeDeck() {
-        String[] suits = {"CLUBS", "DIAMONDS", "HEARTS", "SPADES"};
-        String[] ranks = {"TWO", "THREE", "FOUR", "FIVE", "SIX", "SEVEN", "EIGHT", "NINE", "TEN", "JACK", "QUEEN", "KING", "ACE"};
-        int power = 2;
-        for (String suit : suits) {
-            for (String rank : ranks) {
-                cards.add(new Card(suit, rank, power));
-                power++;
-            }
-            power = 2;
+        this(new SplittableRandom());
+    }
+
+    public Deck(SplittableRandom random) {
+        shuffle(random);
+    }
+
+    // A deck in a given order, as produced by Deal.
+    public Deck(int[] order) {
+        System.arraycopy(order, 0, cards, 0, cards.length);
+    }
+
+    public void shuffle(SplittableRandom random) {
+        shuffle(cards, random);
+        position = 0;
+    }
+
+    // Fills cards with a random permutation of the 52 ordinals.
+    static void shuffle(int[] cards, SplittableRandom random) {
+        for (int i = 0; i < cards.length; i++) {
+            int j = random.nextInt(i + 1);
+            cards[i] = cards[j];
+            cards[j] = i;
         }
     }
 
-    public void shuffle() {
-        Collections.shuffle(cards);
+    // Returns the ordinal of the next card, or -1 once the deck is empty.
+    public int draw() {
+        return position < cards.length ? cards[position++] : -1;
     }
 
-    public Card drawCard() {
-        if (cards.isEmpty()) {
-            return null;
+    // Deals up to count cards as a hand mask.
+    public long deal(int count) {
+        long hand = 0L;
+        int end = Math.min(cards.length, position + count);
+        while (position < end) {
+            hand |= Cards.mask(cards[position++]);
         }
-        return cards.remove(0);
+        return hand;
+    }
+
+    public Card drawCard() {
+        int card = draw();
+        return card < 0 ? null : Card.fromOrdinal(card);
     }
 
     public List<Card> drawCards(int count) {
-        List<Card> drawnCards = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            Card card = drawCard();
-            if (card != null) {
-                drawnCards.add(card);
-            } else {
-                break;
-            }
-        }
-        return drawnCards;
+        return Cards.toList(deal(count));
+    }
+
+    public int remaining() {
+        return cards.length - position;
     }
 
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return position == cards.length;
     }
 }
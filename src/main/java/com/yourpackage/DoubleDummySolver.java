@@ -0,0 +1,601 @@
+package com.yourpackage;
+
+import java.util.Arrays;
+
+// Solves Hokm positions with every hand face up: how many tricks each team ends the hand with under best play on both
+// sides, and which card gets them. As in Room the hand stops once a team has seven tricks, so a search only has to
+// settle who gets there first and how far the other side gets, not how all thirteen tricks fall.
+//
+// Alpha-beta over the hand masks, searching one card at a time but caching only at trick boundaries, where a position
+// is nothing more than who holds each remaining card, the seat to lead and how many tricks each team still needs. The
+// table keys on rank order rather than on the cards themselves, so positions that differ only in which low cards
+// already fell share an entry, and it is fixed-size, so memory stays put however long the solver is reused. Cards
+// that are equal in play (touching once the cards between them are gone) are searched once.
+//
+// Not thread-safe: one solver per thread.
+public class DoubleDummySolver {
+    private static final int TABLE_BITS = Integer.getInteger("hokm.dds.tableBits", 20);
+    private static final int MAX_SEATS = 4;
+    private static final int NO_CARD = -1;
+    // Per suit: a marker bit, then the holder of each remaining card from the top, two bits apiece.
+    private static final int SUIT_KEY_BITS = 27;
+    private static final long OTHER_SIDE = 1L << 2 * SUIT_KEY_BITS + 2;
+
+    // Two-entry buckets; a new entry replaces the one with fewer tricks left below it. Bounds are the searching team's
+    // tricks, and the best card is kept as its suit and place from the top so that it carries over between positions.
+    private final long[] keys;
+    private final long[] keys2;
+    private final byte[] lower;
+    private final byte[] upper;
+    private final byte[] depth;
+    private final byte[] bestCards;
+    private final int bucketMask;
+
+    private final long[] hands = new long[MAX_SEATS];
+    private final int[] teams = new int[MAX_SEATS];
+    private final int[] trick = new int[MAX_SEATS];
+    private final int[] won = new int[2];
+    private final int[][] savedTricks = new int[Cards.SUIT_SIZE + 1][MAX_SEATS];
+    private final int[][] moves = new int[Cards.DECK_SIZE + 1][Cards.SUIT_SIZE];
+    private final int[][] scores = new int[Cards.DECK_SIZE + 1][Cards.SUIT_SIZE];
+    private int seats;
+    private int trump;
+    private int lead;
+    private int played;
+    // The team whose tricks the search counts; the other team plays to keep them down.
+    private int side;
+    private long key;
+    private long key2;
+    private long nodes;
+    private long teamsSignature = -1;
+
+    public DoubleDummySolver() {
+        this(TABLE_BITS);
+    }
+
+    // The table holds 2^tableBits entries of 20 bytes each.
+    public DoubleDummySolver(int tableBits) {
+        int size = 1 << tableBits;
+        this.keys = new long[size];
+        this.keys2 = new long[size];
+        this.lower = new byte[size];
+        this.upper = new byte[size];
+        this.depth = new byte[size];
+        this.bestCards = new byte[size];
+        this.bucketMask = (size - 1) & ~1;
+    }
+
+    // hands and teams are indexed by seat; trick holds the cards already on the table this trick (-1 for the seats
+    // still to play) and leadSeat is the seat that led it, or the seat to lead when it is empty. tricksWon is what each
+    // team has taken so far this hand.
+    public Result solve(long[] hands, int[] teams, int trump, int leadSeat, int[] trick, int[] tricksWon) {
+        int remaining = load(hands, teams, trump, leadSeat, trick, tricksWon);
+        int seat = (lead + played) % seats;
+        int mover = this.teams[seat];
+        side = mover;
+        int ours = converge(seat, NO_CARD, remaining);
+        int hint = NO_CARD;
+        if (played == 0 && remaining > 0) {
+            positionKey(seat, live());
+            int slot = probe(key, key2);
+            hint = slot >= 0 ? tableCard(slot, live()) : NO_CARD;
+        }
+        int best = bestMove(seat, remaining, ours, hint);
+
+        // With enough tricks left one team must reach seven, so when the mover cannot the other side does.
+        int theirs;
+        if (won[mover] + ours < Room.TRICKS_TO_WIN && won[0] + won[1] + remaining >= 2 * Room.TRICKS_TO_WIN - 1) {
+            theirs = Room.TRICKS_TO_WIN - won[1 - mover];
+        } else {
+            side = 1 - mover;
+            theirs = converge(seat, NO_CARD, remaining);
+        }
+        int[] tricks = new int[2];
+        tricks[mover] = won[mover] + ours;
+        tricks[1 - mover] = won[1 - mover] + theirs;
+        return new Result(best, tricks, remaining, nodes);
+    }
+
+    // Every legal card for the seat to move with the tricks the mover's team adds from here if it is played: the
+    // post-game view uses this to show how many tricks each card actually cost. Cards that are not legal stay at -1.
+    public int[] analyze(long[] hands, int[] teams, int trump, int leadSeat, int[] trick, int[] tricksWon) {
+        int remaining = load(hands, teams, trump, leadSeat, trick, tricksWon);
+        int seat = (lead + played) % seats;
+        side = this.teams[seat];
+        int[] values = new int[Cards.DECK_SIZE];
+        Arrays.fill(values, -1);
+        for (long legal = legalCards(seat); legal != 0; legal &= legal - 1) {
+            int card = Cards.lowest(legal);
+            values[card] = converge(seat, card, remaining);
+        }
+        return values;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // MTD(f): a run of null-window searches closing in on the side's tricks, after card if one is given. Each search
+    // only has to prove a bound, which prunes far harder than one wide window, and the table carries what one learns
+    // into the next. The first asks whether the side gets to seven at all, which often settles it.
+    private int converge(int seat, int card, int remaining) {
+        int low = 0;
+        int high = cap(remaining);
+        int guess = high;
+        while (low < high) {
+            int beta = Math.max(guess, low + 1);
+            guess = card == NO_CARD ? search(seat, remaining, beta - 1, beta)
+                    : playAndSearch(seat, card, remaining, beta - 1, beta);
+            if (guess < beta) {
+                high = guess;
+            } else {
+                low = guess;
+            }
+        }
+        return low;
+    }
+
+    private int load(long[] hands, int[] teams, int trump, int leadSeat, int[] trick, int[] tricksWon) {
+        this.seats = hands.length;
+        if (seats > MAX_SEATS) {
+            throw new IllegalArgumentException("At most " + MAX_SEATS + " seats");
+        }
+        long signature = seats;
+        for (int seat = 0; seat < seats; seat++) {
+            signature = signature * 2 + teams[seat];
+        }
+        if (signature != teamsSignature) {
+            Arrays.fill(keys, 0L);
+            Arrays.fill(keys2, 0L);
+            teamsSignature = signature;
+        }
+        System.arraycopy(hands, 0, this.hands, 0, seats);
+        System.arraycopy(teams, 0, this.teams, 0, seats);
+        this.won[0] = tricksWon[0];
+        this.won[1] = tricksWon[1];
+        this.trump = trump;
+        this.lead = leadSeat;
+        this.played = 0;
+        this.nodes = 0;
+        int cards = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            this.trick[seat] = trick[seat];
+            if (trick[seat] != NO_CARD) {
+                played++;
+            }
+            cards += Cards.count(hands[seat]);
+        }
+        return (cards + played) / seats;
+    }
+
+    // The most the side can still add before the hand ends.
+    private int cap(int remaining) {
+        if (won[0] >= Room.TRICKS_TO_WIN || won[1] >= Room.TRICKS_TO_WIN) {
+            return 0;
+        }
+        return Math.min(remaining, Room.TRICKS_TO_WIN - won[side]);
+    }
+
+    // The side's tricks from here, searched within (alpha, beta): a result at or below alpha is only an upper bound
+    // and one at or above beta only a lower bound, which is all the caller needs.
+    private int search(int seat, int remaining, int alpha, int beta) {
+        nodes++;
+        long live = 0;
+        long positionKey = 0;
+        long positionKey2 = 0;
+        int slot = -1;
+        int tableCard = NO_CARD;
+        int cap = cap(remaining);
+        if (cap == 0 || beta <= 0) {
+            return 0;
+        }
+        if (alpha >= cap) {
+            return cap;
+        }
+        if (played == 0) {
+            if (remaining == 1) {
+                return lastTrick(seat);
+            }
+            live = live();
+            positionKey(seat, live);
+            positionKey = key;
+            positionKey2 = key2;
+            slot = probe(positionKey, positionKey2);
+            if (slot >= 0) {
+                if (lower[slot] >= beta || lower[slot] == upper[slot]) {
+                    return lower[slot];
+                }
+                if (upper[slot] <= alpha) {
+                    return upper[slot];
+                }
+                alpha = Math.max(alpha, lower[slot]);
+                beta = Math.min(beta, upper[slot]);
+                tableCard = tableCard(slot, live);
+            }
+            // The other team's entry for the same cards settles who reaches seven, which is half of this search.
+            int other = probe(positionKey ^ OTHER_SIDE, positionKey2);
+            if (other >= 0) {
+                int need = Room.TRICKS_TO_WIN - won[side];
+                int otherNeed = Room.TRICKS_TO_WIN - won[1 - side];
+                if (lower[other] >= otherNeed && Math.min(need - 1, remaining - otherNeed) <= alpha) {
+                    return Math.min(need - 1, remaining - otherNeed);
+                }
+                if (upper[other] < otherNeed && need + otherNeed - 1 <= remaining) {
+                    return cap;
+                }
+            }
+            // The leader's team can cash its quick tricks before anyone else wins one, which bounds the side's tricks
+            // from below when it leads and from above when it does not.
+            int need = Room.TRICKS_TO_WIN - won[teams[seat]];
+            int sure = Math.min(quickTricks(seat, live), need);
+            if (teams[seat] == side && sure >= beta) {
+                return sure;
+            }
+            if (teams[seat] != side) {
+                int atMost = sure == need ? 0 : Math.min(cap, remaining - sure);
+                if (atMost <= alpha) {
+                    return atMost;
+                }
+            }
+        }
+        int windowAlpha = alpha;
+        int windowBeta = beta;
+
+        boolean maximizing = teams[seat] == side;
+        int ply = Cards.DECK_SIZE - remaining * seats + played;
+        int count = orderMoves(seat, ply, tableCard);
+        int[] candidates = moves[ply];
+        int best = maximizing ? -1 : remaining + 1;
+        int bestCard = candidates[0];
+        for (int i = 0; i < count; i++) {
+            int value = playAndSearch(seat, candidates[i], remaining, alpha, beta);
+            if (maximizing ? value > best : value < best) {
+                best = value;
+                bestCard = candidates[i];
+            }
+            if (maximizing) {
+                alpha = Math.max(alpha, best);
+            } else {
+                beta = Math.min(beta, best);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        if (played == 0) {
+            store(positionKey, positionKey2, live, remaining, cap, best, windowAlpha, windowBeta, bestCard);
+        }
+        return best;
+    }
+
+    private int playAndSearch(int seat, int card, int remaining, int alpha, int beta) {
+        hands[seat] &= ~Cards.mask(card);
+        trick[seat] = card;
+        if (played++ == 0) {
+            lead = seat;
+        }
+        int value;
+        if (played == seats) {
+            int winner = winner();
+            int point = teams[winner] == side ? 1 : 0;
+            won[teams[winner]]++;
+            int[] saved = savedTricks[remaining];
+            System.arraycopy(trick, 0, saved, 0, seats);
+            Arrays.fill(trick, 0, seats, NO_CARD);
+            int trickLead = lead;
+            played = 0;
+            value = point + search(winner, remaining - 1, alpha - point, beta - point);
+            won[teams[winner]]--;
+            played = seats;
+            lead = trickLead;
+            System.arraycopy(saved, 0, trick, 0, seats);
+        } else {
+            value = search(seat + 1 == seats ? 0 : seat + 1, remaining, alpha, beta);
+        }
+        played--;
+        trick[seat] = NO_CARD;
+        hands[seat] |= Cards.mask(card);
+        return value;
+    }
+
+    // A card that reaches the solved value, trying the table's choice first. Cheap, since the search that just ran
+    // left the table full of bounds for exactly these positions.
+    private int bestMove(int seat, int remaining, int value, int hint) {
+        long legal = legalCards(seat);
+        if (hint != NO_CARD && Cards.contains(legal, hint)
+                && playAndSearch(seat, hint, remaining, value - 1, value + 1) == value) {
+            return hint;
+        }
+        for (; legal != 0; legal &= legal - 1) {
+            int card = Cards.lowest(legal);
+            if (playAndSearch(seat, card, remaining, value - 1, value + 1) == value) {
+                return card;
+            }
+        }
+        return Cards.lowest(legalCards(seat));
+    }
+
+    // Tricks the leader can cash straight off: its run of top cards in each suit, a side suit counting only for as
+    // many rounds as every opponent with trumps still has to follow.
+    private int quickTricks(int seat, long live) {
+        int sure = 0;
+        for (int suit = 0; suit < 4; suit++) {
+            long mine = Cards.inSuit(hands[seat], suit);
+            long rest = Cards.inSuit(live, suit);
+            int top = 0;
+            while (rest != 0 && Cards.contains(mine, Cards.highest(rest))) {
+                rest &= ~Cards.mask(Cards.highest(rest));
+                top++;
+            }
+            for (int s = 0; s < seats && top > 0 && suit != trump && trump >= 0; s++) {
+                if (teams[s] != teams[seat] && Cards.inSuit(hands[s], trump) != 0) {
+                    top = Math.min(top, Cards.count(Cards.inSuit(hands[s], suit)));
+                }
+            }
+            sure += top;
+        }
+        return sure;
+    }
+
+    // One card each is left, so there is nothing to search.
+    private int lastTrick(int seat) {
+        int leadSuit = Cards.suit(Cards.lowest(hands[seat]));
+        int winner = seat;
+        int bestStrength = -1;
+        for (int s = 0; s < seats; s++) {
+            int strength = TrickResolver.strength(Cards.lowest(hands[s]), leadSuit, trump);
+            if (strength > bestStrength) {
+                bestStrength = strength;
+                winner = s;
+            }
+        }
+        return teams[winner] == side ? 1 : 0;
+    }
+
+    private long legalCards(int seat) {
+        long hand = hands[seat];
+        if (played == 0) {
+            return hand;
+        }
+        long following = Cards.inSuit(hand, Cards.suit(trick[lead]));
+        return following != 0 ? following : hand;
+    }
+
+    private int winner() {
+        int leadSuit = Cards.suit(trick[lead]);
+        int winner = lead;
+        int bestStrength = -1;
+        for (int seat = 0; seat < seats; seat++) {
+            int strength = TrickResolver.strength(trick[seat], leadSuit, trump);
+            if (strength > bestStrength) {
+                bestStrength = strength;
+                winner = seat;
+            }
+        }
+        return winner;
+    }
+
+    // Fills moves[ply] with one card per run of equivalent cards, most promising first: the table's move, then sure
+    // winners when leading, the cheapest card that takes the trick when an opponent holds it, and low cards otherwise.
+    private int orderMoves(int seat, int ply, int tableCard) {
+        long legal = legalCards(seat);
+        long live = 0;
+        for (int s = 0; s < seats; s++) {
+            live |= hands[s];
+            if (trick[s] != NO_CARD) {
+                live |= Cards.mask(trick[s]);
+            }
+        }
+        int leadSuit = played == 0 ? -1 : Cards.suit(trick[lead]);
+        int winningSeat = played == 0 ? -1 : currentWinner(leadSuit);
+        boolean partnerWinning = winningSeat >= 0 && teams[winningSeat] == teams[seat];
+        int winningStrength = winningSeat < 0 ? -1 : TrickResolver.strength(trick[winningSeat], leadSuit, trump);
+        boolean partnerHolds = partnerWinning && !beatenLater(seat, winningStrength, leadSuit);
+
+        int[] candidates = moves[ply];
+        int[] order = scores[ply];
+        int count = 0;
+        for (long cards = legal; cards != 0; cards &= cards - 1) {
+            int card = Cards.lowest(cards);
+            long above = Cards.inSuit(live, Cards.suit(card)) & ~((Cards.mask(card) << 1) - 1);
+            if (above != 0 && Cards.contains(hands[seat], Cards.lowest(above))) {
+                continue;
+            }
+            int rank = Cards.rank(card);
+            int score;
+            if (card == tableCard) {
+                score = 1000;
+            } else if (played == 0) {
+                score = above == 0 ? 200 + rank
+                        : teams[holder(Cards.highest(above))] == teams[seat] ? 150 - rank
+                        : 100 - rank - (Cards.suit(card) == trump ? 20 : 0);
+                if (score < 200 && ruffs((seat + 1) % seats, Cards.suit(card))) {
+                    score -= 50;
+                } else if (score < 200 && ruffs(partner(seat), Cards.suit(card))) {
+                    score += 60;
+                }
+            } else if (!partnerHolds && TrickResolver.strength(card, leadSuit, trump) > winningStrength) {
+                int strength = TrickResolver.strength(card, leadSuit, trump);
+                score = (beatenLater(seat, strength, leadSuit) ? 200 : 300) - rank
+                        - (Cards.suit(card) == trump && leadSuit != trump ? 20 : 0);
+            } else {
+                score = 100 - rank - (Cards.suit(card) == trump ? 20 : 0);
+            }
+            int i = count++;
+            while (i > 0 && order[i - 1] < score) {
+                candidates[i] = candidates[i - 1];
+                order[i] = order[i - 1];
+                i--;
+            }
+            candidates[i] = card;
+            order[i] = score;
+        }
+        return count;
+    }
+
+    // Whether a seat still to play this trick, after seat, can beat a card of the given strength.
+    private boolean beatenLater(int seat, int strength, int leadSuit) {
+        for (int s = (seat + 1) % seats; s != lead; s = (s + 1) % seats) {
+            long following = Cards.inSuit(hands[s], leadSuit);
+            long cards = following != 0 ? following : trump >= 0 ? Cards.inSuit(hands[s], trump) : 0;
+            if (cards != 0 && TrickResolver.strength(Cards.highest(cards), leadSuit, trump) > strength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether seat would trump a lead of suit; seat -1 (no partner) never does.
+    private boolean ruffs(int seat, int suit) {
+        return seat >= 0 && suit != trump && trump >= 0 && Cards.inSuit(hands[seat], suit) == 0
+                && Cards.inSuit(hands[seat], trump) != 0;
+    }
+
+    // The teammate sitting opposite, playing third to this seat's lead.
+    private int partner(int seat) {
+        int opposite = (seat + 2) % seats;
+        return opposite != seat && teams[opposite] == teams[seat] ? opposite : -1;
+    }
+
+    private int holder(int card) {
+        int seat = 0;
+        while (!Cards.contains(hands[seat], card)) {
+            seat++;
+        }
+        return seat;
+    }
+
+    private int currentWinner(int leadSuit) {
+        int winner = -1;
+        int bestStrength = -1;
+        for (int seat = 0; seat < seats; seat++) {
+            if (trick[seat] != NO_CARD) {
+                int strength = TrickResolver.strength(trick[seat], leadSuit, trump);
+                if (strength > bestStrength) {
+                    bestStrength = strength;
+                    winner = seat;
+                }
+            }
+        }
+        return winner;
+    }
+
+    // Sets key and key2 for the trick boundary with seat to lead. Exact rather than hashed, so two positions share an
+    // entry only if they play alike: suits 0 and 1, the leader, the side and team A's need in one; suits 2 and 3, the
+    // trump and team B's need in the other.
+    private void positionKey(int seat, long live) {
+        int tail = 2 * SUIT_KEY_BITS;
+        key = suitKey(live, 0) | suitKey(live, 1) << SUIT_KEY_BITS
+                | (long) (seat | side << 2 | (Room.TRICKS_TO_WIN - won[0]) << 3) << tail;
+        key2 = suitKey(live, 2) | suitKey(live, 3) << SUIT_KEY_BITS
+                | (long) (trump + 1 | (Room.TRICKS_TO_WIN - won[1]) << 3) << tail;
+    }
+
+    private long suitKey(long live, int suit) {
+        long suitKey = 1;
+        for (long rest = Cards.inSuit(live, suit); rest != 0; ) {
+            int card = Cards.highest(rest);
+            rest &= ~Cards.mask(card);
+            int holder = 0;
+            while (!Cards.contains(hands[holder], card)) {
+                holder++;
+            }
+            suitKey = suitKey << 2 | holder;
+        }
+        return suitKey;
+    }
+
+    private int probe(long key, long key2) {
+        int bucket = bucket(key, key2);
+        if (keys[bucket] == key && keys2[bucket] == key2) {
+            return bucket;
+        }
+        if (keys[bucket + 1] == key && keys2[bucket + 1] == key2) {
+            return bucket + 1;
+        }
+        return -1;
+    }
+
+    private int bucket(long key, long key2) {
+        long mixed = (key * 0x9E3779B97F4A7C15L ^ key2) * 0xC2B2AE3D27D4EB4FL;
+        return (int) (mixed >>> 32) & bucketMask;
+    }
+
+    private void store(long key, long key2, long live, int remaining, int cap, int value, int alpha, int beta,
+                       int bestCard) {
+        int slot = probe(key, key2);
+        if (slot < 0) {
+            int bucket = bucket(key, key2);
+            slot = depth[bucket] <= depth[bucket + 1] ? bucket : bucket + 1;
+            keys[slot] = key;
+            keys2[slot] = key2;
+            lower[slot] = 0;
+            upper[slot] = (byte) cap;
+        }
+        if (value > alpha) {
+            lower[slot] = (byte) Math.max(lower[slot], value);
+        }
+        if (value < beta) {
+            upper[slot] = (byte) Math.min(upper[slot], value);
+        }
+        depth[slot] = (byte) remaining;
+        long above = Cards.inSuit(live, Cards.suit(bestCard)) & ~((Cards.mask(bestCard) << 1) - 1);
+        bestCards[slot] = (byte) (Cards.suit(bestCard) * Cards.SUIT_SIZE + Cards.count(above));
+    }
+
+    // The stored best card translated back to this position's cards.
+    private int tableCard(int slot, long live) {
+        int suit = bestCards[slot] / Cards.SUIT_SIZE;
+        long cards = Cards.inSuit(live, suit);
+        for (int above = bestCards[slot] % Cards.SUIT_SIZE; above > 0 && cards != 0; above--) {
+            cards &= ~Cards.mask(Cards.highest(cards));
+        }
+        return cards == 0 ? NO_CARD : Cards.highest(cards);
+    }
+
+    private long live() {
+        long live = 0;
+        for (int seat = 0; seat < seats; seat++) {
+            live |= hands[seat];
+        }
+        return live;
+    }
+
+    public static class Result {
+        private final int bestCard;
+        private final int[] tricks;
+        private final int remaining;
+        private final long nodes;
+
+        private Result(int bestCard, int[] tricks, int remaining, long nodes) {
+            this.bestCard = bestCard;
+            this.tricks = tricks;
+            this.remaining = remaining;
+            this.nodes = nodes;
+        }
+
+        public int getBestCard() {
+            return bestCard;
+        }
+
+        // Tricks the team ends the hand with under best play, those already won included. The team that reaches seven
+        // ends the hand there; for the other this is the most it can take before that happens.
+        public int getTricks(int team) {
+            return tricks[team];
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            return "best " + Card.fromOrdinal(bestCard) + ", tricks " + tricks[0] + ":" + tricks[1] + " (" + nodes + " nodes)";
+        }
+    }
+}
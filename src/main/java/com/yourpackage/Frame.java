@@ -0,0 +1,73 @@
+package com.yourpackage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// An encoded ProtocolCodec frame. The bytes are never handed out directly: every recipient gets its own read-only
+// view over the same array, so a broadcast is encoded once however many clients receive it.
+public final class Frame {
+    private final byte[] bytes;
+    private final boolean sequenced;
+
+    Frame(byte[] bytes) {
+        this(bytes, false);
+    }
+
+    private Frame(byte[] bytes, boolean sequenced) {
+        this.bytes = bytes;
+        this.sequenced = sequenced;
+    }
+
+    public Opcode getOpcode() {
+        return Opcode.fromCode(bytes[3]);
+    }
+
+    // The same bytes, marked as a room broadcast. Each ClientTransport numbers marked frames as it writes them, after
+    // its overflow policy has had its say, so a frame it drops or coalesces never leaves a hole in the sequence.
+    public Frame sequenced() {
+        return new Frame(bytes, true);
+    }
+
+    public boolean isSequenced() {
+        return sequenced;
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    // A private copy of the header carrying the given sequence number; payload() follows it on the wire.
+    ByteBuffer header(long sequence) {
+        byte[] header = Arrays.copyOf(bytes, ProtocolCodec.PAYLOAD_OFFSET);
+        int offset = ProtocolCodec.SEQUENCE_OFFSET;
+        header[offset] = (byte) (sequence >>> 24);
+        header[offset + 1] = (byte) (sequence >>> 16);
+        header[offset + 2] = (byte) (sequence >>> 8);
+        header[offset + 3] = (byte) sequence;
+        return ByteBuffer.wrap(header);
+    }
+
+    ByteBuffer payload() {
+        int offset = ProtocolCodec.PAYLOAD_OFFSET;
+        return ByteBuffer.wrap(bytes, offset, bytes.length - offset).asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Frame other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return getOpcode().name();
+    }
+}
@@ -0,0 +1,277 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Append-only log of every room's game events, shared by all rooms. A record is
+//   u8 kind, u16 room id length, room id (UTF-8), i32 payload length, payload
+// where kind is an event, a snapshot of the whole room, or the room closing. Recovery keeps, per room, the latest
+// snapshot and the events after it, then rewrites the log with just that so it does not grow across restarts. The
+// writer keeps the same state up to date as it commits, and rewrites the log from it whenever the file has doubled
+// since the last rewrite (and is past hokm.gamelog.compactBytes), so it does not grow while the server runs either.
+public class GameLog {
+    private static final Logger LOGGER = Logger.getLogger(GameLog.class.getName());
+    private static final String GAMES_FILE = System.getProperty("hokm.gamelog.file", "games.log");
+    private static final int MAX_BATCH = 512;
+    private static final long COMPACT_BYTES = Long.getLong("hokm.gamelog.compactBytes", 64L << 20);
+    private static final byte EVENT = 1;
+    private static final byte SNAPSHOT = 2;
+    private static final byte CLOSED = 3;
+
+    private static GameLog instance;
+
+    private final Path path;
+    private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+    private final Map<String, Recovered> recovered = new LinkedHashMap<>();
+    // What recovery would find if the log were read now. Only the writer touches it once the constructor returns.
+    private final Map<String, Recovered> live = new LinkedHashMap<>();
+    private FileChannel log;
+    private long logSize;
+    private long compactAt;
+
+    public static synchronized GameLog getInstance() {
+        if (instance == null) {
+            instance = new GameLog(Paths.get(GAMES_FILE));
+        }
+        return instance;
+    }
+
+    public GameLog(Path path) {
+        this.path = path;
+        try {
+            recover();
+            recovered.values().forEach(room -> live.put(room.roomId, room.copy()));
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open game log " + path, e);
+        }
+        Thread writer = new Thread(this::writeLoop, "game-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public CompletableFuture<Void> append(String roomId, byte[] event) {
+        return enqueue(EVENT, roomId, event);
+    }
+
+    public CompletableFuture<Void> snapshot(String roomId, byte[] state) {
+        return enqueue(SNAPSHOT, roomId, state);
+    }
+
+    public CompletableFuture<Void> closed(String roomId) {
+        return enqueue(CLOSED, roomId, new byte[0]);
+    }
+
+    // The rooms that were still open when the log was last written, as found when it was opened.
+    public Map<String, Recovered> getRecovered() {
+        return Collections.unmodifiableMap(recovered);
+    }
+
+    private CompletableFuture<Void> enqueue(byte kind, String roomId, byte[] payload) {
+        PendingWrite write = new PendingWrite(kind, roomId, payload);
+        pendingWrites.add(write);
+        return write.done;
+    }
+
+    private static byte[] encode(byte kind, String roomId, byte[] payload) {
+        byte[] id = roomId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 + id.length + 4 + payload.length);
+        record.put(kind).putShort((short) id.length).put(id).putInt(payload.length).put(payload);
+        return record.array();
+    }
+
+    // A record cut short by a crash ends the log; everything before it is kept.
+    private void recover() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        int records = 0;
+        while (data.remaining() >= 3) {
+            int start = data.position();
+            byte kind = data.get();
+            int idLength = data.getShort() & 0xFFFF;
+            if (data.remaining() < idLength + 4) {
+                data.position(start);
+                break;
+            }
+            byte[] id = new byte[idLength];
+            data.get(id);
+            int length = data.getInt();
+            if (length < 0 || data.remaining() < length) {
+                data.position(start);
+                break;
+            }
+            byte[] payload = new byte[length];
+            data.get(payload);
+            records++;
+            apply(recovered, kind, new String(id, StandardCharsets.UTF_8), payload);
+        }
+        if (data.hasRemaining()) {
+            LOGGER.warning("Dropping torn game log record at offset " + data.position());
+        }
+        LOGGER.info("Read " + records + " game log records, " + recovered.size() + " rooms to restore");
+    }
+
+    private static void apply(Map<String, Recovered> rooms, byte kind, String roomId, byte[] payload) {
+        switch (kind) {
+            case SNAPSHOT -> rooms.put(roomId, new Recovered(roomId, payload));
+            case EVENT -> {
+                Recovered room = rooms.get(roomId);
+                if (room != null) {
+                    room.events.add(payload);
+                }
+            }
+            case CLOSED -> rooms.remove(roomId);
+            default -> LOGGER.warning("Skipping game log record of unknown kind " + kind);
+        }
+    }
+
+    // Writes the live state to a fresh file and swaps it in, so closed rooms and superseded events are gone. Until
+    // the move the old log is untouched, so a failure or a crash part way leaves it as it was.
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Recovered room : live.values()) {
+                write(out, encode(SNAPSHOT, room.roomId, room.snapshot));
+                for (byte[] event : room.events) {
+                    write(out, encode(EVENT, room.roomId, event));
+                }
+            }
+            out.force(false);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        FileChannel previous = log;
+        log = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        logSize = log.size();
+        compactAt = Math.max(COMPACT_BYTES, logSize * 2);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Same group commit as UserStore: whatever queued up during the last force goes out in one write and one force,
+    // so rooms never wait on the disk.
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(pendingWrites.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingWrites.drainTo(batch, MAX_BATCH - 1);
+
+            int size = 0;
+            for (PendingWrite write : batch) {
+                size += write.record.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            for (PendingWrite write : batch) {
+                buffer.put(write.record);
+            }
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    log.write(buffer);
+                }
+                log.force(false);
+                batch.forEach(write -> write.done.complete(null));
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error writing game log", e);
+                batch.forEach(write -> write.done.completeExceptionally(e));
+                batch.clear();
+                continue;
+            }
+            for (PendingWrite write : batch) {
+                apply(live, write.kind, write.roomId, write.payload);
+            }
+            batch.clear();
+            logSize += size;
+            if (logSize > compactAt) {
+                compactLive();
+            }
+        }
+    }
+
+    private void compactLive() {
+        long before = logSize;
+        try {
+            compact();
+            LOGGER.info("Compacted game log from " + before + " to " + logSize + " bytes, " + live.size() + " rooms");
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not compact game log, still appending to it", e);
+            compactAt = logSize + COMPACT_BYTES;
+        }
+    }
+
+    public static class Recovered {
+        private final String roomId;
+        private final byte[] snapshot;
+        private final List<byte[]> events = new ArrayList<>();
+
+        private Recovered(String roomId, byte[] snapshot) {
+            this.roomId = roomId;
+            this.snapshot = snapshot;
+        }
+
+        private Recovered copy() {
+            Recovered copy = new Recovered(roomId, snapshot);
+            copy.events.addAll(events);
+            return copy;
+        }
+
+        public String getRoomId() {
+            return roomId;
+        }
+
+        public byte[] getSnapshot() {
+            return snapshot;
+        }
+
+        public List<byte[]> getEvents() {
+            return events;
+        }
+    }
+
+    private static class PendingWrite {
+        private final byte kind;
+        private final String roomId;
+        private final byte[] payload;
+        private final byte[] record;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingWrite(byte kind, String roomId, byte[] payload) {
+            this.kind = kind;
+            this.roomId = roomId;
+            this.payload = payload;
+            this.record = encode(kind, roomId, payload);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Times crash recovery at scale: fills a game log from many rooms of bots playing random cards, legal or not, then
+// opens it again as a restarted server would and restores every room. Closing one room first gives the compaction
+// on open something to drop. Set -Dhokm.gamelog.compactBytes low to see the log compacted while the rooms play too.
+public class GameLogBenchmark {
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        if (rooms <= 1) {
+            System.err.println("Usage: GameLogBenchmark [rooms, at least 2] [seed]");
+            System.exit(1);
+        }
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Path path = Files.createTempFile("games", ".log");
+        try {
+            System.out.println(run(path, rooms, seed));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".tmp"));
+        }
+    }
+
+    public static Report run(Path path, int rooms, long seed) throws IOException, ClassNotFoundException {
+        Report report = new Report(rooms);
+        SplittableRandom random = new SplittableRandom(seed);
+        GameLog log = new GameLog(path);
+        Room[] live = new Room[rooms];
+        long start = System.nanoTime();
+        for (int i = 0; i < rooms; i++) {
+            Room room = new Room("room" + i, 4, Room.TRICKS_TO_WIN, seed + i);
+            live[i] = room;
+            room.setGameLog(log);
+            for (int seat = 0; seat < 4; seat++) {
+                room.addPlayer(new Player("room" + i + "-" + seat, null)).join();
+            }
+            room.startGame();
+            Player[] players = room.getPlayers().toArray(new Player[0]);
+            // Only the master's declaration is taken; the others are rejected.
+            for (Player player : players) {
+                room.setHokmSuit(player, Card.suitName(i % Cards.SUIT_COUNT)).join();
+            }
+            int plays = 200 + random.nextInt(800);
+            for (int k = 0; k < plays; k++) {
+                Player player = players[random.nextInt(players.length)];
+                long hand = player.getHandMask();
+                if (hand != 0) {
+                    int card = random.nextBoolean() ? Long.numberOfTrailingZeros(hand) : random.nextInt(Cards.DECK_SIZE);
+                    room.playCard(player, Card.fromOrdinal(card)).join();
+                }
+            }
+        }
+        for (Room room : live) {
+            room.submit(() -> { }).join();
+        }
+        // Marks the first room closed. It is queued after every room's records, so once it is on disk they all are.
+        log.closed(live[0].getCreator()).join();
+        report.writeNanos = System.nanoTime() - start;
+        report.logBytes = Files.size(path);
+
+        start = System.nanoTime();
+        GameLog reopened = new GameLog(path);
+        report.openNanos = System.nanoTime() - start;
+        report.compactedBytes = Files.size(path);
+
+        start = System.nanoTime();
+        for (GameLog.Recovered recovered : reopened.getRecovered().values()) {
+            Room.restore(recovered);
+            report.restored++;
+            report.events += recovered.getEvents().size();
+        }
+        report.restoreNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    public static class Report {
+        private final int rooms;
+        private long writeNanos;
+        private long openNanos;
+        private long restoreNanos;
+        private long logBytes;
+        private long compactedBytes;
+        private int restored;
+        private long events;
+
+        private Report(int rooms) {
+            this.rooms = rooms;
+        }
+
+        public int getRestored() {
+            return restored;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("logged %d rooms in %.0fms, %d bytes; open and compact %.0fms, %d bytes left; "
+                            + "restored %d rooms replaying %d events in %.0fms", rooms, writeNanos / 1e6, logBytes,
+                    openNanos / 1e6, compactedBytes, restored, events, restoreNanos / 1e6);
+        }
+    }
+}
@@ -4,21 +4,26 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.net.Socket;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class GameUI {
     private static final Logger LOGGER = Logger.getLogger(GameUI.class.getName());
+    private static final long GAP_TIMEOUT_MS = 2000;
+    private static final long GAP_CHECK_MS = 250;
     private ChatPanel chatPanel;
-    private final ObjectOutputStream out;
-    private final ObjectInputStream in;
+    private final DataOutputStream out;
+    private final DataInputStream in;
     private Socket socket;
     private String username;
     private String roomCreator;
@@ -34,13 +39,23 @@ public class GameUI {
     private JPanel hokmSelectionPanel;
     private boolean isMyTurn = false;
     private String currentSuit = "";
-    private final Map<String, Long> receivedMessages = new HashMap<>();
-    private final long MESSAGE_TIMEOUT = 4000;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final SequenceWindow<ProtocolCodec.Message> roomMessages =
+            new SequenceWindow<>(this::handleMessage, (from, to) -> resyncNeeded = true, GAP_TIMEOUT_MS);
+    // Owns roomMessages: every frame off the socket and every gap check runs here in turn, so the window needs no lock.
+    private final ScheduledExecutorService roomReader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "room-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Set by the window for each missing stretch, so several at once still cost one SYNC_STATE; room-reader only.
+    private boolean resyncNeeded;
 
     private List<JLabel> playedCardLabels;
+    // The hand and the suit led in the current trick; only touched on the event dispatch thread.
+    private long handMask;
+    private int leadSuit = -1;
 
-    public GameUI(String username, String roomCreator, ObjectOutputStream out, ObjectInputStream in, Socket socket) {
+    public GameUI(String username, String roomCreator, DataOutputStream out, DataInputStream in, Socket socket) {
         this.username = username;
         this.roomCreator = roomCreator;
         this.out = out;
@@ -113,115 +128,122 @@ public class GameUI {
     }
 
     private void setupConnection() {
+        // A gap is only given up on from here: the frame that would end the wait may never arrive. The check is queued
+        // on room-reader like a message, so a handler stuck in a dialog delays it rather than racing it.
+        roomReader.scheduleWithFixedDelay(() -> onRoomReader(roomMessages::expireGap),
+                GAP_CHECK_MS, GAP_CHECK_MS, TimeUnit.MILLISECONDS);
         new Thread(() -> {
             try {
                 while (true) {
-                    Object received = in.readObject();
-                    if (received instanceof String message) {
-                        long currentTime = System.currentTimeMillis();
-
-                        lock.lock();
-                        try {
-                            Iterator<Map.Entry<String, Long>> iterator = receivedMessages.entrySet().iterator();
-                            while (iterator.hasNext()) {
-                                Map.Entry<String, Long> entry = iterator.next();
-                                if (currentTime - entry.getValue() > MESSAGE_TIMEOUT) {
-                                    iterator.remove();
-                                }
-                            }
-
-                            if (receivedMessages.containsKey(message)) {
-                                continue;
-                            }
-
-                            receivedMessages.put(message, currentTime);
-                        } finally {
-                            lock.unlock();
+                    ProtocolCodec.Message message = ProtocolCodec.read(in);
+                    roomReader.execute(() -> onRoomReader(() -> {
+                        if (message.getSequence() == 0) {
+                            roomMessages.acceptUnsequenced(message);
+                        } else {
+                            roomMessages.accept(message.getSequence(), message);
                         }
-
-                        LOGGER.info("Received message: " + message);
-                        processMessage(message);
-                    }
+                    }));
                 }
             } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "Error in game message handling", e);
+                LOGGER.log(Level.SEVERE, "Error reading game messages", e);
+            } finally {
+                // Messages already read are still handled; the gap check stops.
+                roomReader.shutdown();
             }
-        }).start();
+        }, "game-socket-reader").start();
     }
 
-    private void processMessage(String message) throws IOException {
-        if (message.startsWith("PLAYER_LIST:")) {
-            String[] parts = message.split(":", 4);
-            if (parts.length == 4) {
-                String teamAMessage = parts[2].trim();
-                String teamBMessage = parts[3].trim();
-                LOGGER.info("Team A: " + teamAMessage + ", Team B: " + teamBMessage);
-                updatePlayersList(teamAMessage, teamBMessage);
+    private void onRoomReader(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error in game message handling", e);
+        }
+        if (resyncNeeded) {
+            resyncNeeded = false;
+            requestResync();
+        }
+    }
+
+    private void handleMessage(ProtocolCodec.Message message) {
+        LOGGER.info("Received message: " + message);
+        try {
+            processMessage(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void processMessage(ProtocolCodec.Message message) throws IOException {
+        if (message.getOpcode() == null) {
+            LOGGER.info("Skipping unknown message: " + message);
+            return;
+        }
+        switch (message.getOpcode()) {
+            case PLAYERS -> updatePlayersList(message.readStrings(), message.readStrings());
+            case CHAT_MESSAGE -> chatPanel.updateChatArea(message.readString() + ": " + message.readString());
+            case SCORE_UPDATE -> updateScores(message.readNumber(), message.readNumber());
+            case TURN_WINNER -> handleTurnWinner(teamName(message.readFlag()));
+            case GAME_STARTING -> handleStartGame(message.readStrings(), message.readStrings());
+            case MASTER_SELECTED -> {
+                String master = message.readString();
+                currentSuit = master;
+                LOGGER.info("Master is " + master);
             }
-        } else if (message.startsWith("CHAT:")) {
-            chatPanel.updateChatArea(message.substring(5));
-        } else if (message.startsWith("SCORE_UPDATE:")) {
-            updateScores(message);
-        } else if (message.startsWith("TURN_WINNER:")) {
-            handleTurnWinner(message);
-        } else if (message.startsWith("START_GAME:")) {
-            handleStartGame(message);
-        } else if (message.startsWith("MASTER_SELECTED:")) {
-            String master = message.split(":")[1];
-            currentSuit = master;
-            LOGGER.info("Master is " + master);
-        } else if (message.startsWith("DEAL_CARDS:")) {
-            DealCards(Collections.singletonList(message));
-        } else if (message.contains("SELECT_HOKM")) {
-            showHokmSelection();
-        } else if (message.startsWith("CARD_PLAYED:")) {
-            handlePlayCard(message);
-        } else if (message.startsWith("PLAYER_TURN:")) {
-            handleTurn(message);
-        } else if (message.startsWith("HOKM_SELECTED:")) {
-            handleHokmSelected(message);
-        } else if (message.startsWith("ROUND_START:")) {
-            handleRoundStart(message);
-        } else if (message.startsWith("ROUND_WINS_UPDATE:")) {
-            handleRoundWinsUpdate(message);
-        } else if (message.startsWith("TEAM_WINS_ROUND:")) {
-            handleTeamWinsRound(message);
-        } else if (message.startsWith("GAME_OVER:")) {
-            handleGameOver(message);
-        } else {
-            LOGGER.info("Unknown message received");
-            chatPanel.updateChatArea(message);
+            case DEAL_CARDS -> DealCards(message.readHand());
+            case SELECT_HOKM -> showHokmSelection();
+            case CARD_PLAYED -> handlePlayCard(message.readString(), message.readCard());
+            case PLAYER_TURN -> handleTurn(message.readString());
+            case HOKM_SELECTED -> handleHokmSelected(Card.suitName(message.readFlag()));
+            case ROUND_START -> handleRoundStart(message.readNumber());
+            case ROUND_WINS_UPDATE -> handleRoundWinsUpdate(message.readNumber(), message.readNumber());
+            case TEAM_WINS_ROUND -> handleTeamWinsRound(teamName(message.readFlag()));
+            case TEAM_WINS_GAME -> handleGameOver(teamName(message.readFlag()));
+            case GAME_OVER -> LOGGER.info("Game over");
+            case NOTICE, ERROR -> chatPanel.updateChatArea(message.readString());
+            case MOVE_REJECTED -> handleMoveRejected(message.readFlag(), message.readString());
+            default -> LOGGER.info("Unknown message received: " + message);
         }
     }
 
-    private void handleTurn(String message) {
-        String player = message.split(":")[1];
+    // The server's reason is shown as sent, so a code this client does not know still reads properly.
+    private void handleMoveRejected(int code, String description) {
+        MoveError error = MoveError.find(code);
+        LOGGER.warning("Move rejected: " + (error != null ? error : "unknown code " + code));
+        chatPanel.updateChatArea(description);
+    }
+
+    private String teamName(int teamIndex) {
+        return teamIndex == 0 ? "Team A" : "Team B";
+    }
+
+    private void handleTurn(String player) {
         isMyTurn = player.equals(username);
       //  if (isMyTurn) {
         //    JOptionPane.showMessageDialog(null, "It's your turn!", "Turn", JOptionPane.INFORMATION_MESSAGE);
         //}
     }
 
-    private List<String> extractPlayerNames(String part) {
-        return Arrays.stream(part.replace("Team A: ", "").replace("Team B: ", "").split(","))
-                .map(String::trim)
-                .filter(name -> !name.isEmpty())
-                .toList();
+    // Room messages were lost, so anything drawn from them may be wrong: the server resends the whole table.
+    private void requestResync() {
+        try {
+            ProtocolCodec.write(out, ProtocolCodec.frame(Opcode.SYNC_STATE).string(roomCreator).string(username).build());
+            LOGGER.log(Level.INFO, "State resync requested");
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error requesting a state resync", e);
+        }
     }
 
     private void requestPlayerList() {
         try {
-            out.writeObject("PLAYER_LIST:" + username);
-            out.flush();
+            ProtocolCodec.write(out, ProtocolCodec.frame(Opcode.PLAYER_LIST).string(username).build());
             LOGGER.log(Level.INFO, "Player list requested");
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error requesting player list", e);
         }
     }
 
-    private void updatePlayersList(String teamAMessage, String teamBMessage) {
-        List<String> teamA = extractPlayerNames(teamAMessage);
-        List<String> teamB = extractPlayerNames(teamBMessage);
+    private void updatePlayersList(List<String> teamA, List<String> teamB) {
         LOGGER.log(Level.INFO, "Team A: " + teamA + ", Team B: " + teamB);
         SwingUtilities.invokeLater(() -> {
             playersPanel.removeAll();
@@ -231,24 +253,21 @@ public class GameUI {
         });
     }
 
-    private void updateScores(String message) {
-        String[] parts = message.split(":");
-        int scoreA = Integer.parseInt(parts[2]);
-        int scoreB = Integer.parseInt(parts[4]);
+    private void updateScores(int scoreA, int scoreB) {
         SwingUtilities.invokeLater(() -> {
             teamAScore.setText("Team A: " + scoreA);
             teamBScore.setText("Team B: " + scoreB);
         });
     }
 
-    private void handleTurnWinner(String message) {
-        String winner = message.split(":")[1];
+    private void handleTurnWinner(String winner) {
         JOptionPane.showMessageDialog(null, winner + " won the turn!", "Turn Winner", JOptionPane.INFORMATION_MESSAGE);
         clearPlayedCards();
     }
 
     private void clearPlayedCards() {
         SwingUtilities.invokeLater(() -> {
+            leadSuit = -1;
             playedCardLabels.forEach(playersPanel::remove);
             playedCardLabels.clear();
             playersPanel.revalidate();
@@ -257,18 +276,15 @@ public class GameUI {
     }
 
 
-    private void handleStartGame(String message) throws IOException {
-        String[] parts = message.split(":");
-        List<String> teamA = List.of(parts[1].split(","));
-        List<String> teamB = List.of(parts[2].split(","));
+    private void handleStartGame(List<String> teamA, List<String> teamB) throws IOException {
         displayTeams(teamA, teamB);
-        out.writeObject("GAME_STARTED:" + roomCreator + ":" + username);
-        out.flush();
+        ProtocolCodec.write(out, ProtocolCodec.frame(Opcode.GAME_STARTED).string(roomCreator).string(username).build());
     }
 
     private void displayTeams(List<String> teamA, List<String> teamB) {
         SwingUtilities.invokeLater(() -> {
             playersPanel.removeAll();
+            playedCardLabels.clear();
 
             if (teamA.size() + teamB.size() == 4) {
                 setupHokmGrid(teamA, teamB);
@@ -339,17 +355,16 @@ public class GameUI {
     }
 
 
-    private void DealCards(List<String> cards) {
+    private void DealCards(List<Card> cards) {
         SwingUtilities.invokeLater(() -> {
+            handMask = Cards.maskOf(cards);
             handPanel.removeAll();
             handButtons.clear();
-            String cardsMessage = cards.get(0);
-            String[] cardList = cardsMessage.substring("DEAL_CARDS:[".length(), cardsMessage.length() - 1).split(", ");
 
             handPanel.setLayout(new FlowLayout(FlowLayout.LEFT, 5, 5));
 
-            for (String card : cardList) {
-                String trimmedCard = card.trim();
+            for (Card card : cards) {
+                String trimmedCard = card.toString();
                 String imagePath = "/Cards/" + trimmedCard + ".png";
 
                 ImageIcon cardIcon = createScaledImageIcon(imagePath, 30, 45);
@@ -413,8 +428,7 @@ public class GameUI {
         }
 
         try {
-            out.writeObject("PLAY_CARD:" + roomCreator + ":" + username + ":" + card);
-            out.flush();
+            ProtocolCodec.write(out, ProtocolCodec.frame(Opcode.PLAY_CARD).string(roomCreator).string(username).card(Card.fromString(card)).build());
             removeCardFromHand(card);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Error sending played card", e);
@@ -422,27 +436,10 @@ public class GameUI {
     }
 
 
+    // A card must follow the suit that was led unless the hand has none of that suit left.
     private boolean canPlayCard(String card) {
-        String[] cardParts = card.split("-");
-        String cardSuit = cardParts[0];
-
-        if (playedCardLabels.isEmpty()) {
-            return true;
-        }
-
-
-        String[] firstCardParts = playedCardLabels.get(0).getText().split("-");
-        String firstCardSuit = firstCardParts[0];
-
-        boolean hasSuit = handButtons.stream()
-                .anyMatch(button -> button.getActionCommand().startsWith(firstCardSuit));
-
-        if (hasSuit) {
-
-            return cardSuit.equals(firstCardSuit);
-        } else {
-            return true;
-        }
+        int played = Card.fromString(card).getOrdinal();
+        return leadSuit < 0 || Cards.suit(played) == leadSuit || Cards.inSuit(handMask, leadSuit) == 0;
     }
 
 
@@ -484,8 +481,7 @@ public class GameUI {
 
         try {
             if (username.equals(currentSuit)) {
-                out.writeObject("SET_HOKM:" + roomCreator + ":" + suit);
-                out.flush();
+                ProtocolCodec.write(out, ProtocolCodec.frame(Opcode.SET_HOKM).string(roomCreator).flag(Card.suitIndex(suit)).build());
                 LOGGER.info("Sent Hokm selection to server: " + suit);
             }
         } catch (IOException e) {
@@ -493,14 +489,13 @@ public class GameUI {
         }
     }
 
-    private void handlePlayCard(String message) {
+    private void handlePlayCard(String player, Card card) {
         SwingUtilities.invokeLater(() -> {
+            if (leadSuit < 0) {
+                leadSuit = Cards.suit(card.getOrdinal());
+            }
             try {
-                String[] parts = message.split(":");
-                String player = parts[1];
-                String card = parts[2];
-
-                displayPlayedCard(player, card);
+                displayPlayedCard(player, card.toString());
 
                 if (player.equals(username)) {
                     isMyTurn = false;
@@ -546,6 +541,7 @@ public class GameUI {
 
     private void removeCardFromHand(String card) {
         SwingUtilities.invokeLater(() -> {
+            handMask &= ~Cards.mask(Card.fromString(card).getOrdinal());
             for (JButton button : handButtons) {
                 if (button.getActionCommand().equals(card)) {
                     handPanel.remove(button);
@@ -558,33 +554,27 @@ public class GameUI {
         });
     }
 
-    private void handleHokmSelected(String message) {
-        String selectedHokm = message.split(":")[1];
+    private void handleHokmSelected(String selectedHokm) {
         currentSuit = selectedHokm;
     //    JOptionPane.showMessageDialog(null, "Hokm selected: " + selectedHokm, "Hokm Selected", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private void handleRoundStart(String message) {
+    private void handleRoundStart(int round) {
         JOptionPane.showMessageDialog(null, "A new round has started!", "Round Start", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private void handleRoundWinsUpdate(String message) {
-        String[] parts = message.split(":");
-        int teamARounds = Integer.parseInt(parts[2]);
-        int teamBRounds = Integer.parseInt(parts[4]);
+    private void handleRoundWinsUpdate(int teamARounds, int teamBRounds) {
         SwingUtilities.invokeLater(() -> {
             teamARoundWins.setText("Team A Rounds: " + teamARounds);
             teamBRoundWins.setText("Team B Rounds: " + teamBRounds);
         });
     }
 
-    private void handleTeamWinsRound(String message) {
-        String winningTeam = message.split(":")[1];
+    private void handleTeamWinsRound(String winningTeam) {
         JOptionPane.showMessageDialog(null, winningTeam + " wins the round!", "Round Winner", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private void handleGameOver(String message) {
-        String winningTeam = message.split(":")[1];
+    private void handleGameOver(String winningTeam) {
         JOptionPane.showMessageDialog(null, winningTeam + " wins the game!", "Game Over", JOptionPane.INFORMATION_MESSAGE);
     }
 
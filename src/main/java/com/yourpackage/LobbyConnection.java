@@ -0,0 +1,224 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// One long-lived socket per client for every lobby request. Requests and replies are paired by the correlation id
+// carried in LobbyEnvelope, so callers get a future instead of blocking on the stream. Subscriptions keep their
+// correlation id for as long as they are open and every pushed event carries it.
+public class LobbyConnection {
+    private static final String SERVER_ADDRESS = "localhost";
+    private static final int SERVER_PORT = 12345;
+    private static final Logger LOGGER = Logger.getLogger(LobbyConnection.class.getName());
+    private static final long REQUEST_TIMEOUT_MS = 5000;
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    private static LobbyConnection instance;
+
+    private final AtomicLong nextCorrelationId = new AtomicLong(1);
+    private final Map<Long, CompletableFuture<Object>> pendingRequests = new ConcurrentHashMap<>();
+    private final Map<Long, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lobby-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Socket socket;
+    private ObjectOutputStream out;
+    private long backoffMs = 250;
+    private ScheduledFuture<?> reconnect;
+    private boolean closed;
+
+    public static synchronized LobbyConnection getInstance() {
+        if (instance == null) {
+            instance = new LobbyConnection();
+        }
+        return instance;
+    }
+
+    public CompletableFuture<Object> request(String request) {
+        long correlationId = nextCorrelationId.getAndIncrement();
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        pendingRequests.put(correlationId, reply);
+        reply.orTimeout(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> pendingRequests.remove(correlationId));
+
+        io.execute(() -> {
+            try {
+                ensureConnected();
+                out.writeObject(new LobbyEnvelope(correlationId, request));
+                out.flush();
+                out.reset();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error sending lobby request: " + request, e);
+                reply.completeExceptionally(e);
+                connectionLost();
+            }
+        });
+        return reply;
+    }
+
+    public long subscribe(String request, Consumer<Object> listener) {
+        long correlationId = nextCorrelationId.getAndIncrement();
+        subscriptions.put(correlationId, new Subscription(request, listener));
+        io.execute(() -> send(correlationId, request));
+        return correlationId;
+    }
+
+    public void unsubscribe(long correlationId, String request) {
+        if (subscriptions.remove(correlationId) != null) {
+            io.execute(() -> send(correlationId, request));
+        }
+    }
+
+    // Asks the server to start the subscription over, which makes it send a fresh snapshot.
+    public void resubscribe(long correlationId) {
+        Subscription subscription = subscriptions.get(correlationId);
+        if (subscription != null) {
+            io.execute(() -> send(correlationId, subscription.request));
+        }
+    }
+
+    private void send(long correlationId, String request) {
+        try {
+            if (ensureConnected() && subscriptions.containsKey(correlationId)) {
+                return;
+            }
+            out.writeObject(new LobbyEnvelope(correlationId, request));
+            out.flush();
+            out.reset();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error sending lobby request: " + request, e);
+            connectionLost();
+        }
+    }
+
+    // Drops the socket and any reconnect that is waiting to run. The connection stays down until the next request
+    // or subscription opens it again.
+    public void close() {
+        io.execute(() -> {
+            closed = true;
+            if (reconnect != null) {
+                reconnect.cancel(false);
+                reconnect = null;
+            }
+            closeSocket();
+            failPendingRequests();
+        });
+    }
+
+    // Only ever called on the io thread. Returns true when a new socket was opened, in which case every open
+    // subscription has already been re-sent on it.
+    private boolean ensureConnected() throws IOException {
+        closed = false;
+        if (socket != null && !socket.isClosed()) {
+            return false;
+        }
+        Socket newSocket = new Socket(SERVER_ADDRESS, SERVER_PORT);
+        ObjectOutputStream newOut = new ObjectOutputStream(newSocket.getOutputStream());
+        newOut.flush();
+        ObjectInputStream newIn = new ObjectInputStream(newSocket.getInputStream());
+        socket = newSocket;
+        out = newOut;
+        backoffMs = 250;
+        LOGGER.info("Lobby connection established");
+
+        Thread reader = new Thread(() -> readReplies(newSocket, newIn), "lobby-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        for (Map.Entry<Long, Subscription> entry : subscriptions.entrySet()) {
+            newOut.writeObject(new LobbyEnvelope(entry.getKey(), entry.getValue().request));
+        }
+        newOut.flush();
+        return true;
+    }
+
+    private void readReplies(Socket readerSocket, ObjectInputStream in) {
+        try {
+            while (true) {
+                Object received = in.readObject();
+                if (received instanceof LobbyEnvelope envelope) {
+                    CompletableFuture<Object> reply = pendingRequests.remove(envelope.getCorrelationId());
+                    Subscription subscription = subscriptions.get(envelope.getCorrelationId());
+                    if (reply != null) {
+                        reply.complete(envelope.getPayload());
+                    } else if (subscription != null) {
+                        subscription.listener.accept(envelope.getPayload());
+                    }
+                } else {
+                    LOGGER.warning("Unexpected lobby message: " + received);
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            LOGGER.log(Level.WARNING, "Lobby connection lost", e);
+            io.execute(() -> {
+                if (socket == readerSocket) {
+                    connectionLost();
+                }
+            });
+        }
+    }
+
+    // Requests in flight fail fast; the next request or the scheduled retry reconnects with exponential backoff,
+    // unless the connection has been closed.
+    private void connectionLost() {
+        closeSocket();
+        failPendingRequests();
+        if (closed || reconnect != null) {
+            return;
+        }
+        long delay = backoffMs;
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        reconnect = io.schedule(() -> {
+            reconnect = null;
+            try {
+                ensureConnected();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Lobby reconnect failed", e);
+                connectionLost();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void failPendingRequests() {
+        pendingRequests.values().forEach(reply -> reply.completeExceptionally(new IOException("Lobby connection lost")));
+        pendingRequests.clear();
+    }
+
+    private void closeSocket() {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Error closing lobby socket", e);
+        }
+        socket = null;
+        out = null;
+    }
+
+    private static class Subscription {
+        private final String request;
+        private final Consumer<Object> listener;
+
+        private Subscription(String request, Consumer<Object> listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+    }
+}
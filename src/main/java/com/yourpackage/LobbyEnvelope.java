@@ -0,0 +1,23 @@
+package com.yourpackage;
+
+import java.io.Serializable;
+
+public class LobbyEnvelope implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long correlationId;
+    private final Object payload;
+
+    public LobbyEnvelope(long correlationId, Object payload) {
+        this.correlationId = correlationId;
+        this.payload = payload;
+    }
+
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public Object getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,77 @@
+package com.yourpackage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Server-side source of the lobby's room list. Subscribers get one snapshot and then a numbered stream of
+// changes, so lobby traffic follows the rate of change instead of the number of clients polling. The rooms themselves
+// live in the RoomRegistry that owns the feed.
+public class LobbyFeed {
+    private static final int SNAPSHOT_PAGE = 256;
+
+    private final RoomRegistry registry;
+    private final List<Consumer<RoomEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private long version;
+
+    LobbyFeed(RoomRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Subscribers are called while the feed is locked so that versions reach everyone in order;
+    // they must hand the event to the connection's writer rather than write to the socket themselves. A room the
+    // registry has just taken in or let go of may already be in the snapshot or still missing from it, with its own
+    // event right behind; every event carries the room's whole summary, so the client's list ends up the same.
+    public synchronized RoomEvent subscribe(Consumer<RoomEvent> subscriber) {
+        subscribers.add(subscriber);
+        List<RoomSummary> summaries = new ArrayList<>(registry.size());
+        String cursor = null;
+        do {
+            RoomRegistry.Page page = registry.page(cursor, SNAPSHOT_PAGE);
+            summaries.addAll(page.getRooms());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return RoomEvent.snapshot(version, summaries);
+    }
+
+    public void unsubscribe(Consumer<RoomEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public synchronized void roomAdded(Room room) {
+        room.setLobbyFeed(this);
+        publish(RoomEvent.Type.ROOM_ADDED, room, null);
+    }
+
+    // Room.closeRoom calls this once per room.
+    public synchronized void roomRemoved(Room room) {
+        publish(RoomEvent.Type.ROOM_REMOVED, room, null);
+    }
+
+    public synchronized void playerJoined(Room room, String playerName) {
+        publish(RoomEvent.Type.PLAYER_JOINED, room, playerName);
+        if (room.isFull()) {
+            publish(RoomEvent.Type.ROOM_FULL, room, null);
+        }
+    }
+
+    public synchronized void playerLeft(Room room, String playerName) {
+        publish(RoomEvent.Type.PLAYER_LEFT, room, playerName);
+    }
+
+    public synchronized void gameStarted(Room room) {
+        publish(RoomEvent.Type.GAME_STARTED, room, null);
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    private void publish(RoomEvent.Type type, Room room, String playerName) {
+        RoomEvent event = RoomEvent.of(type, ++version, room.getSummary(), playerName);
+        for (Consumer<RoomEvent> subscriber : subscribers) {
+            subscriber.accept(event);
+        }
+    }
+}
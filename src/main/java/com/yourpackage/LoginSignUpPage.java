@@ -5,16 +5,32 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class LoginSignUpPage {
     private static final Logger LOGGER = Logger.getLogger(LoginSignUpPage.class.getName());
 
+    private final Users users;
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JButton signUpButton = new JButton("Sign up");
+    private final JButton loginButton = new JButton("Login");
+    private CompletableFuture<String> pendingRequest;
+
+    public LoginSignUpPage() {
+        this(new Users());
+    }
+
+    LoginSignUpPage(Users users) {
+        this.users = users;
+    }
+
     public void createAndShowGUI() {
         JFrame frame = new JFrame();
         frame.setTitle("Hokm Game Login/Sign up page");
-        frame.setSize(400, 320);
+        frame.setSize(400, 340);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLocationRelativeTo(null);
         frame.setResizable(false);
@@ -61,17 +77,21 @@ public class LoginSignUpPage {
         gbc.gridx = 1;
         frame.add(password, gbc);
 
-        JButton signUpButton = new JButton("Sign up");
         configureButton(signUpButton, Color.red);
         gbc.gridy = 3;
         gbc.gridx = 0;
         frame.add(signUpButton, gbc);
 
-        JButton loginButton = new JButton("Login");
         configureButton(loginButton, Color.black);
         gbc.gridx = 1;
         frame.add(loginButton, gbc);
 
+        statusLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        gbc.gridy = 4;
+        gbc.gridx = 0;
+        gbc.gridwidth = 2;
+        frame.add(statusLabel, gbc);
+
         addMouseListener(signUpButton, Color.decode("#ed0000"), Color.red);
         addMouseListener(loginButton, Color.decode("#262626"), Color.black);
 
@@ -79,6 +99,7 @@ public class LoginSignUpPage {
         loginButton.addActionListener(e -> handleLogin(username.getText(), password.getText(), frame));
 
         frame.setVisible(true);
+        users.warmUp();
     }
 
     private void configureButton(JButton button, Color bgColor) {
@@ -103,42 +124,78 @@ public class LoginSignUpPage {
         });
     }
 
-    private void handleSignUp(String usernameSTR, String passwordSTR, JFrame frame) {
+    private void handleSignUp(String usernameSTR, String passwordSTR, Component frame) {
         if (usernameSTR.isEmpty() || passwordSTR.isEmpty()) {
             showErrorDialog(frame, "You have not entered the " + (usernameSTR.isEmpty() ? "username" : "password") + "!");
             return;
         }
-        Users usersObj = new Users();
-        String registrationResult = usersObj.registerUser(usernameSTR, passwordSTR);
-        if (Objects.equals(registrationResult, "This username is taken!")) {
-            showErrorDialog(frame, "This username is taken!");
-        } else {
-            showInfoDialog(frame, "Registration successful:) now login");
+        if (isBusy()) {
+            return;
         }
+        runInBackground(frame, "Signing up...", users.registerUserAsync(usernameSTR, passwordSTR), registrationResult -> {
+            if (Objects.equals(registrationResult, "Registration successful")) {
+                showInfoDialog(frame, "Registration successful:) now login");
+            } else {
+                showErrorDialog(frame, registrationResult);
+            }
+        });
     }
 
-    private void handleLogin(String usernameSTR, String passwordSTR, JFrame frame) {
+    void handleLogin(String usernameSTR, String passwordSTR, Component frame) {
         if (usernameSTR.isEmpty() || passwordSTR.isEmpty()) {
             showErrorDialog(frame, "You have not entered the " + (usernameSTR.isEmpty() ? "username" : "password") + "!");
             return;
         }
-
-        Users usersObj = new Users();
-        String loginResult = usersObj.loginUser(usernameSTR, passwordSTR);
-        if (Objects.equals(loginResult, "username or password is incorrect!")) {
-            showErrorDialog(frame, "username or password is incorrect!");
-        } else {
-            showInfoDialog(frame, loginResult);
-            frame.dispose();
-            new RoomsPage().createAndShowGUI(usernameSTR);
+        if (isBusy()) {
+            return;
         }
+        runInBackground(frame, "Logging in...", users.loginUserAsync(usernameSTR, passwordSTR), loginResult -> {
+            if (Objects.equals(loginResult, "Login successful.")) {
+                showInfoDialog(frame, loginResult);
+                openRooms(frame, usernameSTR);
+            } else {
+                showErrorDialog(frame, loginResult);
+            }
+        });
+    }
+
+    // Repeated clicks while a request is in flight are dropped rather than queued behind it.
+    private boolean isBusy() {
+        return pendingRequest != null && !pendingRequest.isDone();
+    }
+
+    private void runInBackground(Component frame, String status, CompletableFuture<String> request, Consumer<String> onResult) {
+        pendingRequest = request;
+        setBusy(frame, status, true);
+        request.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            setBusy(frame, " ", false);
+            if (error != null) {
+                LOGGER.log(Level.SEVERE, "Authentication request failed", error);
+                showErrorDialog(frame, "An error occurred.");
+            } else {
+                onResult.accept(result);
+            }
+        }));
+    }
+
+    private void setBusy(Component frame, String status, boolean busy) {
+        statusLabel.setText(status);
+        signUpButton.setEnabled(!busy);
+        loginButton.setEnabled(!busy);
+        frame.setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    void openRooms(Component frame, String username) {
+        Window window = frame instanceof Window ? (Window) frame : SwingUtilities.getWindowAncestor(frame);
+        window.dispose();
+        new RoomsPage().createAndShowGUI(username);
     }
 
-    private void showErrorDialog(JFrame frame, String message) {
+    void showErrorDialog(Component frame, String message) {
         JOptionPane.showMessageDialog(frame, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
-    private void showInfoDialog(JFrame frame, String message) {
+    void showInfoDialog(Component frame, String message) {
         JOptionPane.showMessageDialog(frame, message, "Information", JOptionPane.INFORMATION_MESSAGE);
     }
 }
@@ -0,0 +1,424 @@
+package com.yourpackage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Picks hokm and cards for BotPlayer by determinized Monte Carlo: deal the cards the bot cannot see at random (keeping
+// to what the table has revealed, such as a seat that failed to follow suit), play the rest of the hand out with a
+// quick rollout policy for each candidate, and take the candidate whose team came out ahead most often. Samplers run
+// in parallel on their own fork/join pool until the per-move budget is spent. Late in the hand the rollouts give way
+// to DoubleDummySolver, which scores every candidate of a deal exactly.
+public final class MonteCarloBot {
+    private static final Logger LOGGER = Logger.getLogger(MonteCarloBot.class.getName());
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("hokm.bot.budgetMs", 250));
+    private static final int THREADS = Integer.getInteger("hokm.bot.threads", Runtime.getRuntime().availableProcessors());
+    // Cards in the bot's hand at or below which each deal is solved rather than rolled out; 0 turns the solver off.
+    private static final int SOLVER_CARDS = Integer.getInteger("hokm.bot.solverCards", 5);
+    // Endings are small, so each worker keeps a far smaller table than the solver's default.
+    private static final ThreadLocal<DoubleDummySolver> SOLVERS = ThreadLocal.withInitial(() -> new DoubleDummySolver(16));
+    private static final ThreadMXBean THREAD_MX = ManagementFactory.getThreadMXBean();
+    private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+    private static final ForkJoinPool SAMPLERS = new ForkJoinPool(THREADS, pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("bot-worker-" + WORKER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    private static final AtomicLong decisions = new AtomicLong();
+    private static final AtomicLong samples = new AtomicLong();
+    private static final AtomicLong latencyNanos = new AtomicLong();
+    private static final AtomicLong maxLatencyNanos = new AtomicLong();
+    private static final AtomicLong cpuNanos = new AtomicLong();
+
+    private MonteCarloBot() {
+    }
+
+    // Completes with the suit index to declare. The position is the master's, holding its first five cards.
+    public static CompletableFuture<Integer> chooseHokm(Position position) {
+        return decide(position, new int[]{0, 1, 2, 3}, true);
+    }
+
+    // Completes with the ordinal of the card to play.
+    public static CompletableFuture<Integer> chooseCard(Position position) {
+        long legal = position.legalCards();
+        int[] candidates = new int[Cards.count(legal)];
+        for (int i = 0; legal != 0; legal &= legal - 1) {
+            candidates[i++] = Cards.lowest(legal);
+        }
+        return decide(position, candidates, false);
+    }
+
+    private static CompletableFuture<Integer> decide(Position position, int[] candidates, boolean hokm) {
+        long start = System.nanoTime();
+        if (candidates.length == 1) {
+            record(start, 0, 0);
+            return CompletableFuture.completedFuture(candidates[0]);
+        }
+        long deadline = start + BUDGET_NANOS;
+        return CompletableFuture.supplyAsync(() -> {
+            List<Sampler> samplers = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                samplers.add(new Sampler(position, candidates, hokm, deadline, ThreadLocalRandom.current().nextLong()));
+            }
+            double[] totals = new double[candidates.length];
+            long sampled = 0;
+            long cpu = 0;
+            for (Sampler sampler : RecursiveTask.invokeAll(samplers)) {
+                Tally tally = sampler.join();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += tally.scores[i];
+                }
+                sampled += tally.samples;
+                cpu += tally.cpuNanos;
+            }
+            int best = 0;
+            for (int i = 1; i < totals.length; i++) {
+                if (totals[i] > totals[best]) {
+                    best = i;
+                }
+            }
+            record(start, sampled, cpu);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Seat " + position.seat + " chose " + (hokm ? Card.suitName(candidates[best])
+                        : Card.fromOrdinal(candidates[best])) + " from " + candidates.length + " candidates after "
+                        + sampled + " samples in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                        + "ms (" + TimeUnit.NANOSECONDS.toMillis(cpu) + "ms CPU)");
+            }
+            return candidates[best];
+        }, SAMPLERS);
+    }
+
+    private static void record(long start, long sampled, long cpu) {
+        long latency = System.nanoTime() - start;
+        decisions.incrementAndGet();
+        samples.addAndGet(sampled);
+        latencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        cpuNanos.addAndGet(cpu);
+    }
+
+    // Totals across every bot since startup, for sizing how many bot seats a node can carry.
+    public static long getDecisions() {
+        return decisions.get();
+    }
+
+    public static long getSamples() {
+        return samples.get();
+    }
+
+    public static double getAverageLatencyMillis() {
+        long count = decisions.get();
+        return count == 0 ? 0 : latencyNanos.get() / 1e6 / count;
+    }
+
+    public static double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+
+    public static double getAverageCpuMillis() {
+        long count = decisions.get();
+        return count == 0 ? 0 : cpuNanos.get() / 1e6 / count;
+    }
+
+    public static String describeMetrics() {
+        return String.format("%d bot decisions, %d samples, %.1fms avg, %.1fms max, %.1fms CPU each", getDecisions(),
+                getSamples(), getAverageLatencyMillis(), getMaxLatencyMillis(), getAverageCpuMillis());
+    }
+
+    private static long threadCpuNanos() {
+        return THREAD_MX.isCurrentThreadCpuTimeSupported() ? THREAD_MX.getCurrentThreadCpuTime() : 0;
+    }
+
+    // What the bot is allowed to know when it decides: its own cards and what everyone has seen on the table.
+    public static class Position {
+        private final int seat;
+        private final int seats;
+        private final int[] teams;
+        private final long hand;
+        private final int[] handSizes;
+        private final long played;
+        private final int[] voidSuits;
+        private final int trump;
+        private final int leadSeat;
+        private final int[] trick;
+        private final int[] tricksWon;
+
+        // voidSuits has bit s set for a seat known to hold no cards of suit s; trick holds each seat's card in the
+        // current trick or -1; trump is -1 while the hokm is still to be chosen.
+        public Position(int seat, int[] teams, long hand, int[] handSizes, long played, int[] voidSuits, int trump,
+                        int leadSeat, int[] trick, int[] tricksWon) {
+            this.seat = seat;
+            this.seats = teams.length;
+            this.teams = teams;
+            this.hand = hand;
+            this.handSizes = handSizes;
+            this.played = played;
+            this.voidSuits = voidSuits;
+            this.trump = trump;
+            this.leadSeat = leadSeat;
+            this.trick = trick;
+            this.tricksWon = tricksWon;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public int[] getTeams() {
+            return teams;
+        }
+
+        public long getHand() {
+            return hand;
+        }
+
+        public int getTrump() {
+            return trump;
+        }
+
+        // -1 when the seat is leading.
+        public int getLeadSeat() {
+            return leadSeat;
+        }
+
+        public int[] getTrick() {
+            return trick;
+        }
+
+        public int[] getTricksWon() {
+            return tricksWon;
+        }
+
+        public int getLeadSuit() {
+            return leadSeat < 0 ? -1 : Cards.suit(trick[leadSeat]);
+        }
+
+        // The hand, narrowed to the lead suit when the seat can follow it.
+        public long legalCards() {
+            long following = getLeadSuit() < 0 ? 0 : Cards.inSuit(hand, getLeadSuit());
+            return following != 0 ? following : hand;
+        }
+    }
+
+    private static class Tally {
+        private final double[] scores;
+        private final long samples;
+        private final long cpuNanos;
+
+        private Tally(double[] scores, long samples, long cpuNanos) {
+            this.scores = scores;
+            this.samples = samples;
+            this.cpuNanos = cpuNanos;
+        }
+    }
+
+    // Each sampler draws its own deals and scores every candidate against the same deal, which keeps the comparison
+    // between candidates fair even with few samples.
+    @SuppressWarnings("serial")
+    private static class Sampler extends RecursiveTask<Tally> {
+        private final Position position;
+        private final int[] candidates;
+        private final boolean hokm;
+        private final long deadline;
+        private final SplittableRandom random;
+        private final long[] dealt;
+        private final long[] hands;
+        private final int[] unknown;
+        private final int[] unseen = new int[Cards.DECK_SIZE];
+        private final TrickResolver resolver;
+
+        private Sampler(Position position, int[] candidates, boolean hokm, long deadline, long seed) {
+            this.position = position;
+            this.candidates = candidates;
+            this.hokm = hokm;
+            this.deadline = deadline;
+            this.random = new SplittableRandom(seed);
+            this.dealt = new long[position.seats];
+            this.hands = new long[position.seats];
+            this.unknown = new int[position.seats];
+            this.resolver = new TrickResolver(position.seats);
+        }
+
+        @Override
+        protected Tally compute() {
+            long cpuStart = threadCpuNanos();
+            double[] scores = new double[candidates.length];
+            long count = 0;
+            boolean solve = !hokm && Cards.count(position.hand) <= SOLVER_CARDS;
+            do {
+                determinize();
+                if (solve) {
+                    solveOut(scores);
+                } else {
+                    for (int i = 0; i < candidates.length; i++) {
+                        System.arraycopy(dealt, 0, hands, 0, hands.length);
+                        scores[i] += hokm ? playOut(candidates[i], -1) : playOut(position.trump, candidates[i]);
+                    }
+                }
+                count++;
+            } while (System.nanoTime() < deadline);
+            return new Tally(scores, count, threadCpuNanos() - cpuStart);
+        }
+
+        // Hands the cards the bot has not seen to the seats that hold them, never giving a seat a suit it has shown
+        // it is out of unless nothing else fits. While hokm is being chosen everyone's full hand is still to come.
+        private void determinize() {
+            long hidden = Cards.FULL_DECK & ~position.hand & ~position.played;
+            int total = 0;
+            for (long cards = hidden; cards != 0; cards &= cards - 1) {
+                int j = random.nextInt(total + 1);
+                unseen[total] = unseen[j];
+                unseen[j] = Cards.lowest(cards);
+                total++;
+            }
+            for (int seat = 0; seat < position.seats; seat++) {
+                dealt[seat] = seat == position.seat ? position.hand : 0L;
+                unknown[seat] = seat == position.seat
+                        ? (hokm ? Cards.SUIT_SIZE - Cards.count(position.hand) : 0)
+                        : (hokm ? Cards.SUIT_SIZE : position.handSizes[seat]);
+            }
+            for (int i = 0; i < total; i++) {
+                int card = unseen[i];
+                int seat = pickSeat(Cards.suit(card), true);
+                if (seat < 0) {
+                    seat = pickSeat(Cards.suit(card), false);
+                }
+                if (seat < 0) {
+                    continue;
+                }
+                dealt[seat] |= Cards.mask(card);
+                unknown[seat]--;
+            }
+        }
+
+        // A seat still short of cards, chosen in proportion to how many it is missing; -1 when none fits.
+        private int pickSeat(int suit, boolean respectVoids) {
+            int open = 0;
+            for (int seat = 0; seat < position.seats; seat++) {
+                if (fits(seat, suit, respectVoids)) {
+                    open += unknown[seat];
+                }
+            }
+            if (open == 0) {
+                return -1;
+            }
+            int pick = random.nextInt(open);
+            for (int seat = 0; seat < position.seats; seat++) {
+                if (fits(seat, suit, respectVoids)) {
+                    pick -= unknown[seat];
+                    if (pick < 0) {
+                        return seat;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private boolean fits(int seat, int suit, boolean respectVoids) {
+            return unknown[seat] > 0 && !(respectVoids && (position.voidSuits[seat] >> suit & 1) != 0);
+        }
+
+        // Plays the hand out from the position, the bot starting with firstCard (or, choosing hokm, leading with
+        // the rollout policy under the given trump). Scores 1 when the bot's team takes the hand, plus a little for
+        // each trick of margin so near misses still rank above blowouts.
+        private double playOut(int trump, int firstCard) {
+            int seats = position.seats;
+            int[] won = {position.tricksWon[0], position.tricksWon[1]};
+            int lead = position.leadSeat < 0 ? position.seat : position.leadSeat;
+            resolver.reset();
+            for (int i = 0; i < seats; i++) {
+                int seat = (lead + i) % seats;
+                if (position.trick[seat] >= 0) {
+                    resolver.play(seat, position.trick[seat]);
+                }
+            }
+            int seat = position.seat;
+            int card = firstCard >= 0 ? firstCard : rollout(seat, trump);
+            while (true) {
+                hands[seat] &= ~Cards.mask(card);
+                resolver.play(seat, card);
+                seat = seat + 1 == seats ? 0 : seat + 1;
+                if (resolver.isComplete()) {
+                    int winner = resolver.winningSeat(trump);
+                    if (++won[position.teams[winner]] >= Room.TRICKS_TO_WIN || hands[winner] == 0) {
+                        break;
+                    }
+                    resolver.reset();
+                    seat = winner;
+                }
+                card = rollout(seat, trump);
+            }
+            int team = position.teams[position.seat];
+            return (won[team] >= Room.TRICKS_TO_WIN ? 1.0 : 0.0) + (won[team] - won[1 - team]) * 0.01;
+        }
+
+        // Scores every candidate against the deal with best play on all sides, on the same scale as playOut: the
+        // solver stops the hand at seven tricks too, so the team's count stands in for the margin.
+        private void solveOut(double[] scores) {
+            int lead = position.leadSeat < 0 ? position.seat : position.leadSeat;
+            int[] values = SOLVERS.get().analyze(dealt, position.teams, position.trump, lead, position.trick,
+                    position.tricksWon);
+            int team = position.teams[position.seat];
+            for (int i = 0; i < candidates.length; i++) {
+                int ours = position.tricksWon[team] + values[candidates[i]];
+                scores[i] += (ours >= Room.TRICKS_TO_WIN ? 1.0 : 0.0) + ours * 0.01;
+            }
+        }
+
+        // Quick play: lead the top card of a random suit; otherwise win as cheaply as possible unless the partner is
+        // already winning, and throw the lowest card when the trick cannot be taken.
+        private int rollout(int seat, int trump) {
+            long hand = hands[seat];
+            int leadSuit = resolver.getLeadSuit();
+            if (leadSuit < 0) {
+                int suit = random.nextInt(4);
+                while (Cards.inSuit(hand, suit) == 0) {
+                    suit = (suit + 1) & 3;
+                }
+                return Cards.highest(Cards.inSuit(hand, suit));
+            }
+            long legal = Cards.inSuit(hand, leadSuit) != 0 ? Cards.inSuit(hand, leadSuit) : hand;
+            int winningSeat = resolver.winningSeat(trump);
+            if (position.teams[winningSeat] == position.teams[seat]) {
+                return cheapest(legal, trump);
+            }
+            int winning = resolver.getCard(winningSeat);
+            int winningSuit = Cards.suit(winning);
+            long higher = Cards.inSuit(legal, winningSuit) & ~((Cards.mask(winning) << 1) - 1);
+            if (higher != 0) {
+                return Cards.lowest(higher);
+            }
+            if (winningSuit != trump && trump >= 0 && Cards.inSuit(legal, trump) != 0) {
+                return Cards.lowest(Cards.inSuit(legal, trump));
+            }
+            return cheapest(legal, trump);
+        }
+
+        // The lowest-ranked card, keeping trumps back when there is anything else.
+        private static int cheapest(long legal, int trump) {
+            long spare = trump >= 0 && (legal & ~Cards.suitMask(trump)) != 0 ? legal & ~Cards.suitMask(trump) : legal;
+            int best = -1;
+            for (int suit = 0; suit < 4; suit++) {
+                int card = Cards.lowest(Cards.inSuit(spare, suit));
+                if (card >= 0 && (best < 0 || Cards.rank(card) < Cards.rank(best))) {
+                    best = card;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.yourpackage;
+
+// Why Room rejected a PLAY_CARD or a SET_HOKM. Sent to the player as a MOVE_REJECTED frame carrying the code and the
+// description.
+public enum MoveError {
+    NOT_IN_GAME(1, "You are not playing in this game"),
+    HOKM_NOT_SELECTED(2, "The hokm has not been selected yet"),
+    NOT_YOUR_TURN(3, "Not your turn"),
+    CARD_NOT_IN_HAND(4, "You do not hold that card"),
+    MUST_FOLLOW_SUIT(5, "You must follow the suit that was led"),
+    HOKM_ALREADY_SELECTED(6, "The hokm has already been chosen");
+
+    private static final MoveError[] BY_CODE = new MoveError[16];
+
+    static {
+        for (MoveError error : values()) {
+            BY_CODE[error.code] = error;
+        }
+    }
+
+    private final int code;
+    private final String description;
+
+    MoveError(int code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // null for a code this build does not know, such as one added by a newer server.
+    public static MoveError find(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    public static MoveError fromCode(int code) {
+        MoveError error = find(code);
+        if (error == null) {
+            throw new IllegalArgumentException("Unknown move error " + code);
+        }
+        return error;
+    }
+
+    // Checks a card against the hand it is played from; leadSuit is -1 when the card opens the trick. Both checks
+    // are single mask tests. Returns null for a legal play.
+    public static MoveError check(long hand, int card, int leadSuit) {
+        if (!Cards.contains(hand, card)) {
+            return CARD_NOT_IN_HAND;
+        }
+        if (leadSuit >= 0 && Cards.suit(card) != leadSuit && Cards.inSuit(hand, leadSuit) != 0) {
+            return MUST_FOLLOW_SUIT;
+        }
+        return null;
+    }
+}
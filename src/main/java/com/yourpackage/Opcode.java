@@ -0,0 +1,72 @@
+package com.yourpackage;
+
+public enum Opcode {
+    // Client to server
+    JOIN_ROOM(0x01),
+    LEAVE_ROOM(0x02),
+    KICK_USER(0x03),
+    START_GAME(0x04),
+    GAME_STARTED(0x05),
+    PLAYER_LIST(0x06),
+    CHAT(0x07),
+    PLAY_CARD(0x08),
+    SET_HOKM(0x09),
+    WATCH_ROOM(0x0A),
+    SYNC_STATE(0x0B),
+
+    // Server to client
+    USER_LIST(0x20),
+    NOTICE(0x21),
+    GAME_STARTING(0x22),
+    START_GAME_FAILED(0x23),
+    PLAYERS(0x24),
+    CHAT_MESSAGE(0x25),
+    MASTER_SELECTED(0x26),
+    SELECT_HOKM(0x27),
+    HOKM_SELECTED(0x28),
+    DEAL_CARDS(0x29),
+    ROUND_START(0x2A),
+    PLAYER_TURN(0x2B),
+    CARD_PLAYED(0x2C),
+    TURN_WINNER(0x2D),
+    SCORE_UPDATE(0x2E),
+    ROUND_WINS_UPDATE(0x2F),
+    TEAM_WINS_ROUND(0x30),
+    TEAM_WINS_GAME(0x31),
+    GAME_OVER(0x32),
+    KICKED(0x33),
+    ROOM_CLOSED(0x34),
+    ERROR(0x35),
+    MOVE_REJECTED(0x36);
+
+    private static final Opcode[] BY_CODE = new Opcode[256];
+
+    static {
+        for (Opcode opcode : values()) {
+            BY_CODE[opcode.code] = opcode;
+        }
+    }
+
+    private final int code;
+
+    Opcode(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    // null for a code this build does not know, such as one added by a newer server.
+    public static Opcode find(int code) {
+        return BY_CODE[code & 0xFF];
+    }
+
+    public static Opcode fromCode(int code) {
+        Opcode opcode = find(code);
+        if (opcode == null) {
+            throw new IllegalArgumentException("Unknown opcode " + code);
+        }
+        return opcode;
+    }
+}
@@ -0,0 +1,42 @@
+package com.yourpackage;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+// What a ClientTransport does when a frame arrives and its outbound queue is already full. Game frames are never
+// dropped: whenever a policy cannot make room the client is disconnected.
+public enum OverflowPolicy {
+    // Replace a queued state frame with the newer frame of the same opcode, then fall back to DROP_CHAT.
+    COALESCE,
+    // Drop chat and notices (the incoming frame, or the oldest one still queued) to make room.
+    DROP_CHAT,
+    // Disconnect the client as soon as its queue fills.
+    DISCONNECT;
+
+    // Each of these carries the full state, so only the newest one queued matters to the client.
+    private static final Set<Opcode> SUPERSEDED = EnumSet.of(
+            Opcode.USER_LIST, Opcode.PLAYERS, Opcode.SCORE_UPDATE, Opcode.ROUND_WINS_UPDATE);
+    private static final Logger LOGGER = Logger.getLogger(OverflowPolicy.class.getName());
+    private static final Set<Opcode> NON_CRITICAL = EnumSet.of(Opcode.CHAT_MESSAGE, Opcode.NOTICE);
+
+    // A bad value falls back to COALESCE rather than failing every connection.
+    public static OverflowPolicy fromProperty() {
+        String value = System.getProperty("hokm.client.overflowPolicy", COALESCE.name());
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Unknown hokm.client.overflowPolicy " + value + ", using " + COALESCE);
+            return COALESCE;
+        }
+    }
+
+    boolean canCoalesce(Opcode opcode) {
+        return this == COALESCE && SUPERSEDED.contains(opcode);
+    }
+
+    boolean canDrop(Opcode opcode) {
+        return this != DISCONNECT && NON_CRITICAL.contains(opcode);
+    }
+}
@@ -1,45 +1,63 @@
 package com.yourpackage;
 
-import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.List;
 
 public class Player implements Serializable {
     private static final long serialVersionUID = 1L;
     private final String name;
-    private final transient ObjectOutputStream outputStream;
-    private List<Card> hand; // Assuming Card class exists
+    private transient volatile ClientTransport transport;
+    private long hand;
 
-    public Player(String name, ObjectOutputStream outputStream) {
+    public Player(String name, ClientTransport transport) {
         this.name = name;
-        this.outputStream = outputStream;
+        this.transport = transport;
     }
 
     public String getName() {
         return name;
     }
 
-    public ObjectOutputStream getOutputStream() {
-        return outputStream;
+    public ClientTransport getTransport() {
+        return transport;
+    }
+
+    // A player restored from the game log has no connection until they come back.
+    public void setTransport(ClientTransport transport) {
+        this.transport = transport;
     }
 
     public List<Card> getHand() {
-        return hand;
+        return Cards.toList(hand);
     }
 
     public void setHand(List<Card> hand) {
+        this.hand = Cards.maskOf(hand);
+    }
+
+    public long getHandMask() {
+        return hand;
+    }
+
+    public void setHandMask(long hand) {
         this.hand = hand;
     }
 
+    public void addCards(long cards) {
+        hand |= cards;
+    }
+
+    public boolean hasCard(int card) {
+        return Cards.contains(hand, card);
+    }
+
+    public void removeCard(int card) {
+        hand &= ~Cards.mask(card);
+    }
+
     public void closeConnections() {
-        try {
-            if (outputStream != null) {
-                outputStream.close();
-            }
-        } catch (IOException e) {
-            System.err.println("Error closing output stream for player " + name);
-            e.printStackTrace();
+        if (transport != null) {
+            transport.close();
         }
     }
 }
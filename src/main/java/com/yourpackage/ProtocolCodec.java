@@ -0,0 +1,239 @@
+package com.yourpackage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Frame layout: u16 length of everything after it, u8 protocol version, u8 opcode, u32 sequence, then the payload.
+// Strings are u16-length UTF, cards are one byte (their ordinal), hands are a 52-bit mask in a long
+// and teams are a single byte. Room broadcasts carry a sequence number that the client's own transport assigns as it
+// writes them, counting up from 1 on each connection; requests and messages meant for a single client carry 0.
+public final class ProtocolCodec {
+    public static final int VERSION = 2;
+    static final int SEQUENCE_OFFSET = 4;
+    static final int PAYLOAD_OFFSET = SEQUENCE_OFFSET + 4;
+    private static final int HEADER_LENGTH = 6;
+    private static final int MAX_FRAME_LENGTH = 0xFFFF;
+
+    private ProtocolCodec() {
+    }
+
+    public static FrameBuilder frame(Opcode opcode) {
+        return new FrameBuilder(opcode);
+    }
+
+    public static void write(DataOutputStream out, byte[] frame) throws IOException {
+        out.write(frame);
+        out.flush();
+    }
+
+    public static Message read(DataInputStream in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length < HEADER_LENGTH) {
+            throw new IOException("Frame too short: " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        int version = body[0] & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported protocol version " + version);
+        }
+        return new Message(Opcode.find(body[1]), body);
+    }
+
+    // Writes straight into a byte array it grows itself: a stream per frame costs more than the frame, since every
+    // byte it takes goes through a synchronized write.
+    public static final class FrameBuilder {
+        private byte[] bytes = new byte[32];
+        private int length = PAYLOAD_OFFSET;
+
+        private FrameBuilder(Opcode opcode) {
+            bytes[2] = VERSION;
+            bytes[3] = (byte) opcode.getCode();
+        }
+
+        // Modified UTF-8 behind a u16 length, as DataOutputStream.writeUTF writes it.
+        public FrameBuilder string(String value) {
+            int chars = value.length();
+            int utfLength = chars;
+            for (int i = 0; i < chars; i++) {
+                char c = value.charAt(i);
+                if (c == 0 || c >= 0x80) {
+                    utfLength += c >= 0x800 ? 2 : 1;
+                }
+            }
+            if (utfLength > 0xFFFF) {
+                throw new IllegalArgumentException("String too long for a frame: " + utfLength + " bytes");
+            }
+            ensure(2 + utfLength);
+            bytes[length++] = (byte) (utfLength >>> 8);
+            bytes[length++] = (byte) utfLength;
+            for (int i = 0; i < chars; i++) {
+                char c = value.charAt(i);
+                if (c != 0 && c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xC0 | c >> 6);
+                    bytes[length++] = (byte) (0x80 | c & 0x3F);
+                } else {
+                    bytes[length++] = (byte) (0xE0 | c >> 12);
+                    bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            return this;
+        }
+
+        public FrameBuilder strings(List<String> values) {
+            flag(values.size());
+            values.forEach(this::string);
+            return this;
+        }
+
+        public FrameBuilder card(Card card) {
+            return flag(card.getOrdinal());
+        }
+
+        public FrameBuilder hand(List<Card> cards) {
+            return hand(Cards.maskOf(cards));
+        }
+
+        public FrameBuilder hand(long mask) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (mask >>> shift);
+            }
+            return this;
+        }
+
+        public FrameBuilder number(int value) {
+            ensure(2);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        public FrameBuilder flag(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        public Frame toFrame() {
+            return new Frame(build());
+        }
+
+        public byte[] build() {
+            int frameLength = length - 2;
+            if (frameLength > MAX_FRAME_LENGTH) {
+                throw new IllegalArgumentException("Frame too long: " + frameLength);
+            }
+            byte[] frame = Arrays.copyOf(bytes, length);
+            frame[0] = (byte) (frameLength >>> 8);
+            frame[1] = (byte) frameLength;
+            return frame;
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + more));
+            }
+        }
+    }
+
+    public static final class Message {
+        private final Opcode opcode;
+        private final byte[] body;
+        private final DataInputStream payload;
+
+        private Message(Opcode opcode, byte[] body) {
+            this.opcode = opcode;
+            this.body = body;
+            this.payload = new DataInputStream(new ByteArrayInputStream(body, HEADER_LENGTH, body.length - HEADER_LENGTH));
+        }
+
+        // null when the opcode is unknown to this build; the frame is still complete, so readers can skip it.
+        public Opcode getOpcode() {
+            return opcode;
+        }
+
+        public long getSequence() {
+            return ((body[2] & 0xFFL) << 24) | ((body[3] & 0xFFL) << 16) | ((body[4] & 0xFFL) << 8) | (body[5] & 0xFFL);
+        }
+
+        public String readString() {
+            try {
+                return payload.readUTF();
+            } catch (IOException e) {
+                throw truncated(e);
+            }
+        }
+
+        public List<String> readStrings() {
+            int count = readFlag();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        public Card readCard() {
+            return Card.fromOrdinal(readFlag());
+        }
+
+        public List<Card> readHand() {
+            return Cards.toList(readHandMask());
+        }
+
+        public long readHandMask() {
+            try {
+                return payload.readLong();
+            } catch (IOException e) {
+                throw truncated(e);
+            }
+        }
+
+        public int readNumber() {
+            try {
+                return payload.readUnsignedShort();
+            } catch (IOException e) {
+                throw truncated(e);
+            }
+        }
+
+        public int readFlag() {
+            try {
+                return payload.readUnsignedByte();
+            } catch (IOException e) {
+                throw truncated(e);
+            }
+        }
+
+        private UncheckedIOException truncated(IOException e) {
+            return new UncheckedIOException("Truncated " + opcode + " frame", e instanceof EOFException ? e : new EOFException());
+        }
+
+        // Two messages are equal when their frames carry the same bytes, whatever has been read from them so far.
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Message other && Arrays.equals(body, other.body);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(body);
+        }
+
+        @Override
+        public String toString() {
+            return opcode != null ? opcode.name() : "UNKNOWN(" + (body[1] & 0xFF) + ")";
+        }
+    }
+}
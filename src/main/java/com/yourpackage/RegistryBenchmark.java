@@ -0,0 +1,122 @@
+package com.yourpackage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Shows that finding a room and getting into it cost the same however many rooms are open: fills a registry with
+// 10 rooms and then with up to 50,000, and at each size times random lookups by creator, and a join and leave on
+// random rooms as the lobby would do them. Lookups are timed against a plain HashMap of the same rooms too: once the
+// rooms outgrow the CPU caches both slow down alike, which is memory, not the registry. Every size runs once first to
+// warm up, since joins otherwise show the JIT more than the registry.
+public class RegistryBenchmark {
+    private static final int[] SIZES = {10, 100, 1_000, 10_000, 50_000};
+    private static final int LOOKUP_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int joins = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        if (lookups <= 0 || joins <= 0) {
+            System.err.println("Usage: RegistryBenchmark [lookups] [joins] [seed]");
+            System.exit(1);
+        }
+        // Every room and every join logs.
+        Logger.getLogger("").setLevel(Level.WARNING);
+        for (int rooms : SIZES) {
+            run(rooms, lookups, joins, seed);
+        }
+        for (int rooms : SIZES) {
+            System.out.println(run(rooms, lookups, joins, seed));
+        }
+    }
+
+    public static Report run(int rooms, int lookups, int joins, long seed) {
+        Report report = new Report(rooms, lookups, joins);
+        RoomRegistry registry = new RoomRegistry();
+        try {
+            String[] creators = new String[rooms];
+            Map<String, Room> baseline = new HashMap<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < rooms; i++) {
+                creators[i] = "creator" + i;
+                baseline.put(creators[i], registry.create(creators[i], 4, Room.TRICKS_TO_WIN));
+            }
+            report.createNanos = System.nanoTime() - start;
+
+            report.baselineNanos = timeLookups(baseline::get, creators, lookups, seed);
+            report.lookupNanos = timeLookups(registry::get, creators, lookups, seed);
+
+            SplittableRandom random = new SplittableRandom(seed);
+            start = System.nanoTime();
+            for (int i = 0; i < joins; i++) {
+                Room room = registry.get(creators[random.nextInt(rooms)]);
+                String name = "player" + i;
+                room.addPlayer(new Player(name, null)).join();
+                room.removePlayer(name).join();
+            }
+            report.joinNanos = System.nanoTime() - start;
+        } finally {
+            registry.shutdown();
+        }
+        return report;
+    }
+
+    // The fastest of a few rounds, so a GC or a compile landing in one round does not show up as a trend.
+    private static long timeLookups(Function<String, Room> lookup, String[] creators, int lookups, long seed) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < LOOKUP_ROUNDS; round++) {
+            SplittableRandom random = new SplittableRandom(seed + round);
+            int found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                if (lookup.apply(creators[random.nextInt(creators.length)]) != null) {
+                    found++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            if (found != lookups) {
+                throw new IllegalStateException("Lost rooms: found " + found + " of " + lookups);
+            }
+        }
+        return best;
+    }
+
+    public static class Report {
+        private final int rooms;
+        private final int lookups;
+        private final int joins;
+        private long createNanos;
+        private long lookupNanos;
+        private long baselineNanos;
+        private long joinNanos;
+
+        private Report(int rooms, int lookups, int joins) {
+            this.rooms = rooms;
+            this.lookups = lookups;
+            this.joins = joins;
+        }
+
+        public double getLookupNanos() {
+            return (double) lookupNanos / lookups;
+        }
+
+        public double getBaselineLookupNanos() {
+            return (double) baselineNanos / lookups;
+        }
+
+        public double getJoinsPerSecond() {
+            return joinNanos == 0 ? 0 : joins * 1_000_000_000.0 / joinNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,7d rooms: created in %.0fms, lookup %.0fns (HashMap %.0fns), %.0f joins/sec "
+                            + "(join and leave)", rooms, createNanos / 1e6, getLookupNanos(), getBaselineLookupNanos(),
+                    getJoinsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads a replay (see ReplayRecorder for the layout) straight out of a memory map. Every lookup is a fixed offset, so
+// jumping to the last trick of the last hand costs the same as reading the first one.
+public class ReplayReader {
+    private final ByteBuffer data;
+    private final int seats;
+    private final int handCount;
+    private final int trickCount;
+    private final long seed;
+    private final String[] names;
+    private final int[] teams;
+    private final int handTableOffset;
+    private final int trickIndexOffset;
+    private final int moveOffset;
+    private final int trickEntryLength;
+
+    public ReplayReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.limit() < ReplayRecorder.HEADER_LENGTH || data.getInt(0) != ReplayRecorder.MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        if (data.get(4) != ReplayRecorder.VERSION) {
+            throw new IOException("Unsupported replay version " + data.get(4));
+        }
+        this.seats = data.get(5) & 0xFF;
+        this.handCount = data.getShort(6) & 0xFFFF;
+        this.seed = data.getLong(8);
+        this.trickCount = data.getInt(16);
+        this.handTableOffset = data.getInt(20);
+        this.trickIndexOffset = data.getInt(24);
+        this.moveOffset = data.getInt(28);
+        this.trickEntryLength = ReplayRecorder.trickEntryLength(seats);
+        if (moveOffset + (long) trickCount * seats > data.limit()) {
+            throw new IOException("Truncated replay: " + trickCount + " tricks but " + data.limit() + " bytes");
+        }
+
+        this.names = new String[seats];
+        this.teams = new int[seats];
+        int position = ReplayRecorder.HEADER_LENGTH;
+        for (int seat = 0; seat < seats; seat++) {
+            teams[seat] = data.get(position);
+            byte[] name = new byte[data.getShort(position + 1) & 0xFFFF];
+            data.get(position + 3, name);
+            names[seat] = new String(name, StandardCharsets.UTF_8);
+            position += 3 + name.length;
+        }
+    }
+
+    public static ReplayReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getSeats() {
+        return seats;
+    }
+
+    public String getName(int seat) {
+        return names[seat];
+    }
+
+    // 0 for team A, 1 for team B.
+    public int getTeam(int seat) {
+        return teams[seat];
+    }
+
+    public int getHandCount() {
+        return handCount;
+    }
+
+    public int getTrickCount() {
+        return trickCount;
+    }
+
+    public int getFirstTrick(int hand) {
+        return data.getInt(handEntry(hand));
+    }
+
+    public int getTrickCount(int hand) {
+        int end = hand + 1 < handCount ? getFirstTrick(hand + 1) : trickCount;
+        return end - getFirstTrick(hand);
+    }
+
+    public int getDealIndex(int hand) {
+        return data.getShort(handEntry(hand) + 4) & 0xFFFF;
+    }
+
+    public int getMasterSeat(int hand) {
+        return data.get(handEntry(hand) + 6) & 0xFF;
+    }
+
+    public int getHokmSuit(int hand) {
+        return data.get(handEntry(hand) + 7) & 0xFF;
+    }
+
+    // The game-wide number of the given trick of a hand.
+    public int trick(int hand, int trickInHand) {
+        if (trickInHand < 0 || trickInHand >= getTrickCount(hand)) {
+            throw new IndexOutOfBoundsException("Hand " + hand + " has no trick " + trickInHand);
+        }
+        return getFirstTrick(hand) + trickInHand;
+    }
+
+    public int getHand(int trick) {
+        return data.getShort(trickEntry(trick)) & 0xFFFF;
+    }
+
+    public int getLeadSeat(int trick) {
+        return data.get(trickEntry(trick) + 2) & 0xFF;
+    }
+
+    // Tricks the team had won in this hand, and hands it had won in the game, as the trick started.
+    public int getTricksWon(int trick, int team) {
+        return data.get(trickEntry(trick) + 3 + team);
+    }
+
+    public int getRoundsWon(int trick, int team) {
+        return data.get(trickEntry(trick) + 5 + team);
+    }
+
+    public long getHandMask(int trick, int seat) {
+        return data.getLong(trickEntry(trick) + 8 + 8 * seat);
+    }
+
+    // The i-th card of the trick, played by seatOf(trick, i).
+    public int getMove(int trick, int i) {
+        return data.get(moveOffset + trick * seats + i) & 0xFF;
+    }
+
+    public int seatOf(int trick, int i) {
+        return (getLeadSeat(trick) + i) % seats;
+    }
+
+    // Puts the table as it stood after the first moves cards of the trick: hands is filled with what every seat still
+    // holds and the returned resolver has those cards on it.
+    public TrickResolver rebuild(int trick, int moves, long[] hands) {
+        for (int seat = 0; seat < seats; seat++) {
+            hands[seat] = getHandMask(trick, seat);
+        }
+        TrickResolver resolver = new TrickResolver(seats);
+        for (int i = 0; i < moves; i++) {
+            int seat = seatOf(trick, i);
+            int card = getMove(trick, i);
+            hands[seat] &= ~Cards.mask(card);
+            resolver.play(seat, card);
+        }
+        return resolver;
+    }
+
+    private int handEntry(int hand) {
+        if (hand < 0 || hand >= handCount) {
+            throw new IndexOutOfBoundsException("No hand " + hand);
+        }
+        return handTableOffset + hand * ReplayRecorder.HAND_ENTRY_LENGTH;
+    }
+
+    private int trickEntry(int trick) {
+        if (trick < 0 || trick >= trickCount) {
+            throw new IndexOutOfBoundsException("No trick " + trick);
+        }
+        return trickIndexOffset + trick * trickEntryLength;
+    }
+}
@@ -0,0 +1,138 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+// Records a game as Room plays it, in the replay format that ReplayReader maps:
+//   header  "HKRP", u8 version, u8 seats, u16 hands, i64 seed, u32 tricks,
+//           u32 hand table offset, u32 trick index offset, u32 move offset
+//   seats   per seat: u8 team, u16 name length, name (UTF-8)
+//   hands   per hand: u32 first trick, u16 deal index, u8 master seat, u8 hokm suit
+//   tricks  per trick: u16 hand, u8 lead seat, u8 tricks won by each team, u8 rounds won by each team, u8 unused,
+//           then each seat's hand mask (i64) as the trick starts
+//   moves   one byte per card played (its ordinal), seat by seat from the trick's lead
+// Index entries are fixed size and carry the hands, so a reader can start from any trick without replaying the ones
+// before it. The deals themselves are not stored: the seed and deal index regenerate them.
+public class ReplayRecorder implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(ReplayRecorder.class.getName());
+    private static final String REPLAY_DIR = System.getProperty("hokm.replay.dir");
+    private static final ExecutorService ARCHIVER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replay-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    static final int MAGIC = 0x484B5250;
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 32;
+    static final int HAND_ENTRY_LENGTH = 8;
+    static final String EXTENSION = ".hkr";
+
+    private final long seed;
+    private final String[] names;
+    private final int[] teams;
+    private byte[] handTable = new byte[HAND_ENTRY_LENGTH * 8];
+    private int handCount;
+    private byte[] trickIndex;
+    private int trickCount;
+    private byte[] moves = new byte[64];
+    private int moveCount;
+
+    public ReplayRecorder(long seed, String[] names, int[] teams) {
+        this.seed = seed;
+        this.names = names.clone();
+        this.teams = teams.clone();
+        this.trickIndex = new byte[trickEntryLength(names.length) * 16];
+    }
+
+    static int trickEntryLength(int seats) {
+        return 8 + 8 * seats;
+    }
+
+    public void startHand(int dealIndex, int masterSeat, int hokmSuit) {
+        handTable = ensure(handTable, (handCount + 1) * HAND_ENTRY_LENGTH);
+        ByteBuffer.wrap(handTable, handCount * HAND_ENTRY_LENGTH, HAND_ENTRY_LENGTH)
+                .putInt(trickCount).putShort((short) dealIndex).put((byte) masterSeat).put((byte) hokmSuit);
+        handCount++;
+    }
+
+    public void startTrick(int leadSeat, long[] hands, int[] tricksWon, int[] roundsWon) {
+        int length = trickEntryLength(names.length);
+        trickIndex = ensure(trickIndex, (trickCount + 1) * length);
+        ByteBuffer entry = ByteBuffer.wrap(trickIndex, trickCount * length, length)
+                .putShort((short) (handCount - 1)).put((byte) leadSeat)
+                .put((byte) tricksWon[0]).put((byte) tricksWon[1])
+                .put((byte) roundsWon[0]).put((byte) roundsWon[1]).put((byte) 0);
+        for (long hand : hands) {
+            entry.putLong(hand);
+        }
+        trickCount++;
+    }
+
+    public void move(int card) {
+        moves = ensure(moves, moveCount + 1);
+        moves[moveCount++] = (byte) card;
+    }
+
+    public int getTrickCount() {
+        return trickCount;
+    }
+
+    public byte[] toBytes() {
+        byte[][] encodedNames = new byte[names.length][];
+        int seatsLength = 0;
+        for (int seat = 0; seat < names.length; seat++) {
+            encodedNames[seat] = names[seat].getBytes(StandardCharsets.UTF_8);
+            seatsLength += 3 + encodedNames[seat].length;
+        }
+        int handTableOffset = HEADER_LENGTH + seatsLength;
+        int trickIndexOffset = handTableOffset + handCount * HAND_ENTRY_LENGTH;
+        int moveOffset = trickIndexOffset + trickCount * trickEntryLength(names.length);
+
+        ByteBuffer replay = ByteBuffer.allocate(moveOffset + moveCount);
+        replay.putInt(MAGIC).put((byte) VERSION).put((byte) names.length).putShort((short) handCount)
+                .putLong(seed).putInt(trickCount)
+                .putInt(handTableOffset).putInt(trickIndexOffset).putInt(moveOffset);
+        for (int seat = 0; seat < names.length; seat++) {
+            replay.put((byte) teams[seat]).putShort((short) encodedNames[seat].length).put(encodedNames[seat]);
+        }
+        replay.put(handTable, 0, handCount * HAND_ENTRY_LENGTH);
+        replay.put(trickIndex, 0, trickCount * trickEntryLength(names.length));
+        replay.put(moves, 0, moveCount);
+        return replay.array();
+    }
+
+    // Writes the finished game to hokm.replay.dir off the caller's thread. Returns null when no directory is set.
+    public CompletableFuture<Path> archive(String name) {
+        if (REPLAY_DIR == null) {
+            return null;
+        }
+        byte[] replay = toBytes();
+        Path path = Paths.get(REPLAY_DIR, name + "-" + Long.toHexString(seed) + EXTENSION);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(path.getParent());
+                Files.write(path, replay);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write replay " + path, e);
+            }
+            LOGGER.info("Saved replay " + path + " (" + trickCount + " tricks, " + replay.length + " bytes)");
+            return path;
+        }, ARCHIVER);
+    }
+
+    private static byte[] ensure(byte[] array, int length) {
+        return length <= array.length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+    }
+}
@@ -0,0 +1,172 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Re-simulates archived games without a server: regenerates every deal from the seed, checks that each recorded card
+// was legal, works out every trick's winner with TrickResolver and compares the outcome with what the replay recorded.
+// Run it over a directory of replays after touching the engine to catch any game that would now play out differently.
+public class ReplayRunner {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayRunner <replay file or directory>...");
+            System.exit(1);
+        }
+        List<Path> replays = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    files.filter(file -> file.toString().endsWith(ReplayRecorder.EXTENSION)).sorted().forEach(replays::add);
+                }
+            } else {
+                replays.add(path);
+            }
+        }
+        Report report = run(replays);
+        System.out.println(report);
+        System.exit(report.failures.isEmpty() ? 0 : 2);
+    }
+
+    public static Report run(List<Path> replays) {
+        long start = System.nanoTime();
+        List<Result> results = replays.parallelStream().map(path -> {
+            try {
+                ReplayReader replay = ReplayReader.open(path);
+                String failure = check(replay);
+                return new Result(path, replay.getTrickCount(), failure);
+            } catch (IOException | RuntimeException e) {
+                return new Result(path, 0, e.toString());
+            }
+        }).collect(Collectors.toList());
+
+        Report report = new Report();
+        for (Result result : results) {
+            report.games++;
+            report.tricks += result.tricks;
+            if (result.failure != null) {
+                report.failures.add(result.path + ": " + result.failure);
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Returns null when the game replays exactly as recorded, otherwise where it first went wrong.
+    public static String check(ReplayReader replay) {
+        int seats = replay.getSeats();
+        long[] hands = new long[seats];
+        int[] tricksWon = new int[2];
+        int[] roundsWon = new int[2];
+        TrickResolver trick = new TrickResolver(seats);
+
+        for (int hand = 0; hand < replay.getHandCount(); hand++) {
+            Deal deal = Deal.generate(replay.getSeed(), replay.getDealIndex(hand), seats);
+            if (deal.getMasterSeat() != replay.getMasterSeat(hand)) {
+                return "hand " + hand + ": master is seat " + replay.getMasterSeat(hand)
+                        + " but the deal picks seat " + deal.getMasterSeat();
+            }
+            long[] dealt = deal.hands(seats);
+            System.arraycopy(dealt, 0, hands, 0, seats);
+            tricksWon[0] = 0;
+            tricksWon[1] = 0;
+            int hokm = replay.getHokmSuit(hand);
+            int lead = deal.getMasterSeat();
+            int first = replay.getFirstTrick(hand);
+            int last = first + replay.getTrickCount(hand) - 1;
+
+            for (int t = first; t <= last; t++) {
+                if (replay.getHand(t) != hand || replay.getLeadSeat(t) != lead) {
+                    return "trick " + t + ": led by seat " + replay.getLeadSeat(t) + ", expected seat " + lead;
+                }
+                for (int team = 0; team < 2; team++) {
+                    if (replay.getTricksWon(t, team) != tricksWon[team] || replay.getRoundsWon(t, team) != roundsWon[team]) {
+                        return "trick " + t + ": recorded score differs from the simulated one";
+                    }
+                }
+                for (int seat = 0; seat < seats; seat++) {
+                    if (replay.getHandMask(t, seat) != hands[seat]) {
+                        return "trick " + t + ": seat " + seat + " holds different cards than the deal left it";
+                    }
+                }
+
+                trick.reset();
+                for (int i = 0; i < seats; i++) {
+                    int seat = (lead + i) % seats;
+                    int card = replay.getMove(t, i);
+                    MoveError error = card < Cards.DECK_SIZE ? MoveError.check(hands[seat], card, trick.getLeadSuit())
+                            : MoveError.CARD_NOT_IN_HAND;
+                    if (error != null) {
+                        return "trick " + t + ": seat " + seat + " played " + card + ": " + error;
+                    }
+                    hands[seat] &= ~Cards.mask(card);
+                    trick.play(seat, card);
+                }
+                lead = trick.winningSeat(hokm);
+                int team = replay.getTeam(lead);
+                if (++tricksWon[team] >= Room.TRICKS_TO_WIN) {
+                    roundsWon[team]++;
+                    if (t != last) {
+                        return "trick " + t + ": hand " + hand + " is already won but play goes on";
+                    }
+                }
+            }
+            if (tricksWon[0] < Room.TRICKS_TO_WIN && tricksWon[1] < Room.TRICKS_TO_WIN) {
+                return "hand " + hand + " ends before either team has " + Room.TRICKS_TO_WIN + " tricks";
+            }
+        }
+        if (roundsWon[0] < Room.TRICKS_TO_WIN && roundsWon[1] < Room.TRICKS_TO_WIN) {
+            return "game ends before either team has won " + Room.TRICKS_TO_WIN + " hands";
+        }
+        return null;
+    }
+
+    private static class Result {
+        private final Path path;
+        private final long tricks;
+        private final String failure;
+
+        private Result(Path path, long tricks, String failure) {
+            this.path = path;
+            this.tricks = tricks;
+            this.failure = failure;
+        }
+    }
+
+    public static class Report {
+        private final List<String> failures = new ArrayList<>();
+        private long games;
+        private long tricks;
+        private long elapsedNanos;
+
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        public long getTricks() {
+            return tricks;
+        }
+
+        public double getTricksPerSecond() {
+            return elapsedNanos == 0 ? 0 : tricks * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder();
+            summary.append("replayed ").append(games).append(" games, ")
+                    .append(tricks).append(" tricks, ")
+                    .append(failures.size()).append(" failed, ")
+                    .append(String.format("%.0f tricks/sec", getTricksPerSecond()));
+            failures.forEach(failure -> summary.append("\n  failed: ").append(failure));
+            return summary.toString();
+        }
+    }
+}
@@ -1,54 +1,177 @@
 package com.yourpackage;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+// Every room is an actor: commands are queued on its mailbox and run one at a time on a small carrier pool shared by
+// all rooms, so the game logic itself never takes a lock. Frames produced by a command are handed to the client
+// transports' own queues once the command batch is done.
 public class Room implements Serializable {
+    // Seven tricks take a hand and seven hands take the game; the bots, the solver and the replay tools count to this.
+    public static final int TRICKS_TO_WIN = 7;
     private static final long serialVersionUID = 1L;
     private static final Logger LOGGER = Logger.getLogger(Room.class.getName());
+    private static final int CARRIERS = Integer.getInteger("hokm.room.carriers", Runtime.getRuntime().availableProcessors());
+    private static final int MAILBOX_BATCH = 64;
+    private static final int SNAPSHOT_TRICKS = Integer.getInteger("hokm.gamelog.snapshotTricks", 4);
+    private static final boolean BOT_AUTOFILL = Boolean.getBoolean("hokm.bot.autofill");
+    private static final int SPECTATOR_CHECKPOINT_FRAMES = Integer.getInteger("hokm.spectator.checkpointFrames", 128);
+    private static final int EVENT_JOINED = 1;
+    private static final int EVENT_LEFT = 2;
+    private static final int EVENT_STARTED = 3;
+    private static final int EVENT_HOKM = 4;
+    private static final int EVENT_PLAYED = 5;
+    private static final AtomicInteger CARRIER_COUNT = new AtomicInteger();
+    private static final ExecutorService CARRIER_POOL = Executors.newFixedThreadPool(CARRIERS, runnable -> {
+        Thread thread = new Thread(runnable, "room-carrier-" + CARRIER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final String creator;
+    // Only the actor writes to these; the copy-on-write lists let other threads read them without locking.
     private final List<Player> players;
-    private final Set<String> broadcastedMessages = new HashSet<>();
-    private transient List<ObjectOutputStream> clientStreams;
+    private transient List<ClientTransport> clientTransports;
+    private transient List<Outbound> outbox;
+    private transient Queue<Runnable> mailbox;
+    private transient AtomicBoolean scheduled;
+    private transient volatile LobbyFeed lobbyFeed;
+    private transient volatile RoomSummary summary;
+    private transient volatile long lastActivityNanos;
+    private transient volatile boolean closed;
+    private transient GameLog gameLog;
+    private transient int tricksSinceSnapshot;
+    private transient boolean replaying;
+    // Created by the first spectator. Broadcasts made during a batch are handed to it together when the batch flushes.
+    private transient volatile SpectatorRelay spectatorRelay;
+    private transient List<Frame> spectatorFrames;
+    private transient int framesSinceCheckpoint;
+    private transient boolean checkpointDue;
+    private transient CompletableFuture<Void> gameOver;
     private final int maxPlayers;
-    private boolean isGameStarted;
+    private volatile boolean isGameStarted;
     private List<String> teamA;
     private List<String> teamB;
     private Deck deck;
+    // Every deal is derived from the seed and its index, so (seed, moves) is enough to replay the game exactly.
+    private final long seed;
+    private int dealIndex;
+    private transient CompletableFuture<Deal> nextDeal;
     private Player master;
     private String hokmSuit;
+    private int trumpSuit = -1;
     private int currentRound;
     private int totalRounds;
     private int currentPlayerIndex;
-    private Map<Player, Card> currentTurnCards;
+    private TrickResolver trick;
+    // What the table has seen this deal, which is all a bot may go on: every card played, and for each seat the suits
+    // it has shown it is out of.
+    private long playedCards;
+    private int[] voidSuits;
     private int[] teamScores;
     private int[] teamRoundWins;
+    // Kept in snapshots so a restored room still archives the whole game.
+    private ReplayRecorder replay;
 
     public Room(String creator, int maxPlayers, int totalRounds) {
+        this(creator, maxPlayers, totalRounds, ThreadLocalRandom.current().nextLong());
+    }
+
+    public Room(String creator, int maxPlayers, int totalRounds, long seed) {
         this.creator = creator;
         this.maxPlayers = maxPlayers;
         this.totalRounds = totalRounds;
-        this.players = new ArrayList<>();
-        this.clientStreams = new ArrayList<>();
+        this.players = new CopyOnWriteArrayList<>();
         this.isGameStarted = false;
-        this.teamA = new ArrayList<>();
-        this.teamB = new ArrayList<>();
-        this.deck = new Deck();
+        this.teamA = new CopyOnWriteArrayList<>();
+        this.teamB = new CopyOnWriteArrayList<>();
+        this.seed = seed;
         this.currentRound = 0;
         this.currentPlayerIndex = 0;
-        this.currentTurnCards = new HashMap<>();
+        this.trick = new TrickResolver(maxPlayers);
         this.teamScores = new int[]{0, 0};
         this.teamRoundWins = new int[]{0, 0};
+        initTransientState();
     }
 
-    private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        this.clientStreams = new ArrayList<>();
+        initTransientState();
+    }
+
+    private void initTransientState() {
+        this.clientTransports = new CopyOnWriteArrayList<>();
+        this.outbox = new ArrayList<>();
+        this.mailbox = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean();
+        this.lastActivityNanos = System.nanoTime();
+        this.gameOver = new CompletableFuture<>();
+        rebuildSummary();
+    }
+
+    public CompletableFuture<Void> submit(Runnable command) {
+        return ask(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<T> ask(Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        lastActivityNanos = System.nanoTime();
+        mailbox.add(() -> {
+            try {
+                result.complete(command.get());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Room command failed in " + creator + "'s room", e);
+                result.completeExceptionally(e);
+            } catch (Error e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        });
+        if (scheduled.compareAndSet(false, true)) {
+            CARRIER_POOL.execute(this::drainMailbox);
+        }
+        return result;
+    }
+
+    // Runs at most MAILBOX_BATCH commands before giving the carrier back, so one busy room cannot starve the others
+    // sharing the pool. Whatever a command throws, the room is released and rescheduled, or it would never drain again.
+    private void drainMailbox() {
+        try {
+            int processed = 0;
+            Runnable command;
+            while (processed < MAILBOX_BATCH && (command = mailbox.poll()) != null) {
+                command.run();
+                processed++;
+            }
+            flushOutbox();
+        } finally {
+            scheduled.set(false);
+            if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+                CARRIER_POOL.execute(this::drainMailbox);
+            }
+        }
     }
 
     public int getMaxPlayers() {
@@ -67,57 +190,208 @@ public class Room implements Serializable {
         return isGameStarted;
     }
 
-    public synchronized void closeRoom() {
-        broadcastMessage("ROOM_CLOSED");
-        closeAllConnections();
-        clientStreams.clear();
-        players.clear();
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Time of the last command submitted to the room, used by RoomRegistry to reap abandoned tables.
+    public long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    // Rebuilt by the mutators that change membership, so readers never take the room lock.
+    public RoomSummary getSummary() {
+        return summary;
+    }
+
+    private void rebuildSummary() {
+        List<String> playerNames = new ArrayList<>(players.size());
+        for (Player player : players) {
+            playerNames.add(player.getName());
+        }
+        summary = new RoomSummary(creator, maxPlayers, isFull(), isGameStarted, playerNames);
+    }
+
+    public void setLobbyFeed(LobbyFeed lobbyFeed) {
+        this.lobbyFeed = lobbyFeed;
+    }
+
+    public CompletableFuture<Void> closeRoom() {
+        return submit(() -> {
+            if (closed) {
+                return;
+            }
+            // Logged before closed is seen, since RoomRegistry.create hands the name to a new room as soon as it is.
+            if (gameLog != null) {
+                gameLog.closed(creator);
+            }
+            closed = true;
+            broadcast(ProtocolCodec.frame(Opcode.ROOM_CLOSED).toFrame());
+            if (spectatorRelay != null) {
+                publishToSpectators();
+                spectatorRelay.close();
+            }
+            closeAllConnections();
+            clientTransports.clear();
+            players.clear();
+            rebuildSummary();
+            if (lobbyFeed != null) {
+                lobbyFeed.roomRemoved(this);
+            }
+        });
     }
 
     public List<String> getTeamA() {
-        return teamA;
+        return Collections.unmodifiableList(teamA);
     }
 
     public List<String> getTeamB() {
-        return teamB;
+        return Collections.unmodifiableList(teamB);
     }
 
     public List<Player> getPlayers() {
-        return players;
+        return Collections.unmodifiableList(players);
     }
 
     public Player getPlayerByName(String username) {
         return players.stream().filter(p -> p.getName().equals(username)).findFirst().orElse(null);
     }
 
-    public synchronized boolean removePlayer(String username) {
+    public CompletableFuture<Boolean> removePlayer(String username) {
+        return ask(() -> leave(username));
+    }
+
+    private boolean leave(String username) {
         Player player = getPlayerByName(username);
-        if (player != null) {
-            players.remove(player);
-            clientStreams.remove(player.getOutputStream());
-            notifyPlayerKicked(player);
-            broadcastUserList();
-            return true;
+        if (player == null) {
+            return false;
+        }
+        record(EVENT_LEFT, username, 0);
+        players.remove(player);
+        teamA.remove(username);
+        teamB.remove(username);
+        clientTransports.remove(player.getTransport());
+        notifyPlayerKicked(player);
+        sendUserList();
+        rebuildSummary();
+        if (lobbyFeed != null) {
+            lobbyFeed.playerLeft(this, username);
         }
-        return false;
+        return true;
     }
 
-    public synchronized void addPlayer(Player player) {
+    public CompletableFuture<Void> addPlayer(Player player) {
+        return submit(() -> join(player));
+    }
+
+    private void join(Player player) {
         if (!isFull() && players.stream().noneMatch(p -> p.getName().equals(player.getName()))) {
+            record(EVENT_JOINED, player.getName(), player instanceof BotPlayer ? 1 : 0);
             players.add(player);
-            clientStreams.add(player.getOutputStream());
+            if (player.getTransport() != null) {
+                clientTransports.add(player.getTransport());
+            }
             addPlayerToTeam(player);
-            broadcastMessage(player.getName() + " has joined the room.");
-            broadcastUserList();
+            broadcast(ProtocolCodec.frame(Opcode.NOTICE).string(player.getName() + " has joined the room.").toFrame());
+            sendUserList();
+            rebuildSummary();
+            if (isFull() && nextDeal == null) {
+                nextDeal = DealPool.prefetch(seed, dealIndex, maxPlayers);
+            }
+            if (lobbyFeed != null) {
+                lobbyFeed.playerJoined(this, player.getName());
+            }
         }
     }
 
-    public synchronized void addClientStream(ObjectOutputStream out) {
-        clientStreams.add(out);
+    // Gives a player restored from the game log a live connection again and resends what they need to carry on.
+    public CompletableFuture<Boolean> reattach(String username, ClientTransport transport) {
+        return ask(() -> {
+            Player player = getPlayerByName(username);
+            if (player == null) {
+                return false;
+            }
+            clientTransports.remove(player.getTransport());
+            player.setTransport(transport);
+            clientTransports.add(transport);
+            sendMessageToPlayer(player, ProtocolCodec.frame(Opcode.USER_LIST).strings(teamA).strings(teamB).toFrame());
+            if (isGameStarted) {
+                sendCardsToPlayer(player);
+            }
+            return true;
+        });
+    }
+
+    // Answers SYNC_STATE from a client that gave up waiting for lost room messages: the table as a spectator would see
+    // it, then the player's own hand, all sent to that player alone.
+    public CompletableFuture<Boolean> resync(String username) {
+        return ask(() -> {
+            Player player = getPlayerByName(username);
+            if (player == null) {
+                return false;
+            }
+            publicState().forEach(frame -> sendMessageToPlayer(player, frame));
+            if (isGameStarted) {
+                sendCardsToPlayer(player);
+            }
+            return true;
+        });
+    }
+
+    // Only the first spectator goes through the actor, to start the relay. Everyone after that subscribes to the relay
+    // directly, so the size of the audience never shows up on the game's path.
+    public CompletableFuture<Void> watch(ClientTransport transport) {
+        SpectatorRelay relay = spectatorRelay;
+        if (relay != null) {
+            relay.subscribe(transport);
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(() -> {
+            if (spectatorRelay == null) {
+                spectatorFrames = new ArrayList<>();
+                spectatorRelay = new SpectatorRelay(publicState());
+                if (closed) {
+                    spectatorRelay.close();
+                }
+            }
+            spectatorRelay.subscribe(transport);
+        });
+    }
+
+    public void unwatch(ClientTransport transport) {
+        SpectatorRelay relay = spectatorRelay;
+        if (relay != null) {
+            relay.unsubscribe(transport);
+        }
+    }
+
+    public int getSpectatorCount() {
+        SpectatorRelay relay = spectatorRelay;
+        return relay == null ? 0 : relay.getSpectatorCount();
+    }
+
+    // Seats a bot in every empty chair so the table can start without waiting for more people.
+    public CompletableFuture<Integer> fillWithBots() {
+        return ask(this::seatBots);
+    }
+
+    private int seatBots() {
+        int seated = 0;
+        for (int i = 1; !isFull(); i++) {
+            if (getPlayerByName("Bot " + i) == null) {
+                join(new BotPlayer("Bot " + i));
+                seated++;
+            }
+        }
+        return seated;
     }
 
-    public synchronized List<ObjectOutputStream> getClientStreams() {
-        return new ArrayList<>(clientStreams);
+    public CompletableFuture<Void> addClientTransport(ClientTransport transport) {
+        return submit(() -> clientTransports.add(transport));
+    }
+
+    public List<ClientTransport> getClientTransports() {
+        return Collections.unmodifiableList(clientTransports);
     }
 
     private void addPlayerToTeam(Player player) {
@@ -128,117 +402,225 @@ public class Room implements Serializable {
         }
     }
 
-    public synchronized void startGame() {
+    public CompletableFuture<Void> startGame() {
+        return submit(this::start);
+    }
+
+    private void start() {
+        if (BOT_AUTOFILL && !isGameStarted && !players.isEmpty()) {
+            seatBots();
+        }
         if (!isGameStarted && players.size() == maxPlayers) {
+            record(EVENT_STARTED, "", 0);
             this.isGameStarted = true;
-            LOGGER.info("Starting game with " + maxPlayers + " players");
-            deck = new Deck();
-            selectMaster();
+            startReplay();
+            rebuildSummary();
+            LOGGER.info("Starting game with " + maxPlayers + " players, seed " + seed);
+            startDeal();
             dealInitialCards();
             notifyMasterToPickHokm();
+            if (lobbyFeed != null) {
+                lobbyFeed.gameStarted(this);
+            }
         } else {
-            broadcastMessage("START_GAME_FAILED");
+            broadcast(ProtocolCodec.frame(Opcode.START_GAME_FAILED).toFrame());
         }
     }
 
-    private void selectMaster() {
-        int masterIndex = (int) (Math.random() * players.size());
+    public long getSeed() {
+        return seed;
+    }
+
+    // Takes the deal prepared in the background and starts preparing the one after it.
+    private void startDeal() {
+        Deal deal = DealPool.take(nextDeal, seed, dealIndex, players.size());
+        dealIndex++;
+        nextDeal = DealPool.prefetch(seed, dealIndex, players.size());
+        deck = deal.toDeck();
+        playedCards = 0L;
+        voidSuits = new int[players.size()];
+        selectMaster(deal.getMasterSeat());
+    }
+
+    private void selectMaster(int masterIndex) {
         master = players.get(masterIndex);
-        broadcastMessage("MASTER_SELECTED:" + master.getName());
+        broadcast(ProtocolCodec.frame(Opcode.MASTER_SELECTED).string(master.getName()).toFrame());
     }
 
     private void notifyMasterToPickHokm() {
-        sendMessageToPlayer(master, "SELECT_HOKM");
+        sendMessageToPlayer(master, ProtocolCodec.frame(Opcode.SELECT_HOKM).toFrame());
+        promptBot();
+    }
+
+    public CompletableFuture<Void> setHokmSuit(Player player, String hokmSuit) {
+        return submit(() -> declareHokm(player, Card.suitIndex(hokmSuit)));
     }
 
-    public synchronized void setHokmSuit(String hokmSuit) {
-        this.hokmSuit = hokmSuit;
-        broadcastMessage("HOKM_SELECTED:" + hokmSuit);
+    private void declareHokm(Player player, int suitIndex) {
+        MoveError error = validateHokm(player);
+        if (error != null) {
+            reject(player, error);
+            return;
+        }
+        chooseHokm(suitIndex);
+    }
+
+    // Only the master may choose, and only once a hand: a second answer would start the hand over.
+    private MoveError validateHokm(Player player) {
+        if (!isGameStarted || !players.contains(player)) {
+            return MoveError.NOT_IN_GAME;
+        }
+        if (trumpSuit >= 0) {
+            return MoveError.HOKM_ALREADY_SELECTED;
+        }
+        if (player != master) {
+            return MoveError.NOT_YOUR_TURN;
+        }
+        return null;
+    }
+
+    private void chooseHokm(int suitIndex) {
+        record(EVENT_HOKM, "", suitIndex);
+        this.hokmSuit = Card.suitName(suitIndex);
+        this.trumpSuit = suitIndex;
+        broadcast(ProtocolCodec.frame(Opcode.HOKM_SELECTED).flag(suitIndex).toFrame());
         dealRemainingCards();
+        replay.startHand(dealIndex - 1, players.indexOf(master), suitIndex);
         startRound();
     }
 
     private void dealInitialCards() {
         players.forEach(player -> {
-            List<Card> initialCards = deck.drawCards(5);
-            player.setHand(initialCards);
+            player.setHandMask(deck.deal(Deal.INITIAL_CARDS));
             sendCardsToPlayer(player);
         });
     }
 
     private void dealRemainingCards() {
         players.forEach(player -> {
-            List<Card> remainingCards = deck.drawCards(13 - player.getHand().size());
-            player.getHand().addAll(remainingCards);
+            player.addCards(deck.deal(Cards.SUIT_SIZE - Cards.count(player.getHandMask())));
             sendCardsToPlayer(player);
         });
     }
 
     private void sendCardsToPlayer(Player player) {
-        sendMessageToPlayer(player, "DEAL_CARDS:" + player.getHand());
+        sendMessageToPlayer(player, ProtocolCodec.frame(Opcode.DEAL_CARDS).hand(player.getHandMask()).toFrame());
     }
 
     private void startRound() {
         currentPlayerIndex = players.indexOf(master);
-        broadcastMessage("ROUND_START:" + currentRound);
+        broadcast(ProtocolCodec.frame(Opcode.ROUND_START).number(currentRound).toFrame());
         nextTurn();
     }
 
     private void nextTurn() {
         currentPlayerIndex %= players.size();
         Player currentPlayer = players.get(currentPlayerIndex);
-        broadcastMessage("PLAYER_TURN:" + currentPlayer.getName());
-    }
-
-    public synchronized void playCard(Player player, Card card) {
-        if (players.get(currentPlayerIndex).equals(player)) {
-            player.getHand().remove(card);
-            currentTurnCards.put(player, card);
-            broadcastMessage("CARD_PLAYED:" + player.getName() + ":" + card);
-            currentPlayerIndex++;
-            if (currentTurnCards.size() == players.size()) {
-                determineTurnWinner();
-                currentTurnCards.clear();
-            } else {
-                nextTurn();
+        broadcast(ProtocolCodec.frame(Opcode.PLAYER_TURN).string(currentPlayer.getName()).toFrame());
+        promptBot();
+    }
+
+    // Asks the bot whose move it is, if any, to decide. The bot thinks off the actor and answers with an ordinary
+    // setHokmSuit or playCard, so a stale answer is simply rejected.
+    private void promptBot() {
+        if (replaying || closed || !isGameStarted || players.isEmpty()) {
+            return;
+        }
+        if (trumpSuit < 0) {
+            if (master instanceof BotPlayer bot) {
+                bot.chooseHokm(this, botPosition(bot));
             }
-        } else {
-            sendMessageToPlayer(player, "ERROR:Not your turn");
+        } else if (players.get(currentPlayerIndex % players.size()) instanceof BotPlayer bot) {
+            bot.playCard(this, botPosition(bot));
         }
     }
 
-    private void determineTurnWinner() {
-        Player winner = null;
-        Card winningCard = null;
+    private MonteCarloBot.Position botPosition(BotPlayer bot) {
+        int seats = players.size();
+        int[] teams = new int[seats];
+        int[] handSizes = new int[seats];
+        int[] trickCards = new int[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            Player player = players.get(seat);
+            teams[seat] = teamA.contains(player.getName()) ? 0 : 1;
+            handSizes[seat] = Cards.count(player.getHandMask());
+            trickCards[seat] = trick.getCard(seat);
+        }
+        return new MonteCarloBot.Position(players.indexOf(bot), teams, bot.getHandMask(), handSizes, playedCards,
+                voidSuits.clone(), trumpSuit, trick.getLeadSeat(), trickCards, teamScores.clone());
+    }
 
-        for (Map.Entry<Player, Card> entry : currentTurnCards.entrySet()) {
-            Player player = entry.getKey();
-            Card card = entry.getValue();
+    public CompletableFuture<Void> playCard(Player player, Card card) {
+        return submit(() -> play(player, card));
+    }
 
-            if (winningCard == null || isCardHigher(card, winningCard)) {
-                winningCard = card;
-                winner = player;
+    private void play(Player player, Card card) {
+        MoveError error = validatePlay(player, card.getOrdinal());
+        if (error != null) {
+            reject(player, error);
+            return;
+        }
+        record(EVENT_PLAYED, player.getName(), card.getOrdinal());
+        if (trick.isEmpty()) {
+            replay.startTrick(currentPlayerIndex, handMasks(), teamScores, teamRoundWins);
+        }
+        replay.move(card.getOrdinal());
+        if (trick.getLeadSuit() >= 0 && Cards.suit(card.getOrdinal()) != trick.getLeadSuit()) {
+            voidSuits[currentPlayerIndex] |= 1 << trick.getLeadSuit();
+        }
+        playedCards |= Cards.mask(card.getOrdinal());
+        player.removeCard(card.getOrdinal());
+        trick.play(currentPlayerIndex, card.getOrdinal());
+        broadcast(ProtocolCodec.frame(Opcode.CARD_PLAYED).string(player.getName()).card(card).toFrame());
+        currentPlayerIndex++;
+        if (trick.isComplete()) {
+            int winningSeat = trick.winningSeat(trumpSuit);
+            trick.reset();
+            determineTurnWinner(players.get(winningSeat));
+            checkpointDue = true;
+            if (++tricksSinceSnapshot >= SNAPSHOT_TRICKS) {
+                writeSnapshot();
             }
+        } else {
+            nextTurn();
         }
+    }
 
-        if (winner != null) {
-            String winnerName = winner.getName();
-            String winningTeam = teamA.contains(winnerName) ? "Team A" : "Team B";
-            int winningTeamIndex = teamA.contains(winnerName) ? 0 : 1;
-            teamScores[winningTeamIndex]++;
+    // The server is the authority on legal plays; whatever the client checked is only a convenience.
+    private void reject(Player player, MoveError error) {
+        sendMessageToPlayer(player, ProtocolCodec.frame(Opcode.MOVE_REJECTED)
+                .flag(error.getCode()).string(error.getDescription()).toFrame());
+    }
 
-            broadcastMessage("TURN_WINNER:" + winningTeam);
-            broadcastMessage("SCORE_UPDATE:Team A:" + teamScores[0] + ":Team B:" + teamScores[1]);
-            broadcastMessage("ROUND_WINS_UPDATE:Team A:" + teamRoundWins[0] + ":Team B:" + teamRoundWins[1]);
+    private MoveError validatePlay(Player player, int card) {
+        if (!isGameStarted || !players.contains(player)) {
+            return MoveError.NOT_IN_GAME;
+        }
+        if (trumpSuit < 0) {
+            return MoveError.HOKM_NOT_SELECTED;
+        }
+        if (players.get(currentPlayerIndex) != player) {
+            return MoveError.NOT_YOUR_TURN;
+        }
+        return MoveError.check(player.getHandMask(), card, trick.getLeadSuit());
+    }
 
-            if (teamScores[winningTeamIndex] >= 7) {
-                broadcastMessage("TEAM_WINS_ROUND:" + winningTeam);
-                resetForNextRound(winningTeamIndex);
-            } else {
-                master = winner;
-                currentPlayerIndex = players.indexOf(master);
-                nextTurn();
-            }
+    private void determineTurnWinner(Player winner) {
+        String winnerName = winner.getName();
+        int winningTeamIndex = teamA.contains(winnerName) ? 0 : 1;
+        teamScores[winningTeamIndex]++;
+
+        broadcast(ProtocolCodec.frame(Opcode.TURN_WINNER).flag(winningTeamIndex).toFrame());
+        broadcast(ProtocolCodec.frame(Opcode.SCORE_UPDATE).number(teamScores[0]).number(teamScores[1]).toFrame());
+        broadcast(ProtocolCodec.frame(Opcode.ROUND_WINS_UPDATE).number(teamRoundWins[0]).number(teamRoundWins[1]).toFrame());
+
+        if (teamScores[winningTeamIndex] >= TRICKS_TO_WIN) {
+            broadcast(ProtocolCodec.frame(Opcode.TEAM_WINS_ROUND).flag(winningTeamIndex).toFrame());
+            resetForNextRound(winningTeamIndex);
+        } else {
+            master = winner;
+            currentPlayerIndex = players.indexOf(master);
+            nextTurn();
         }
     }
 
@@ -246,84 +628,270 @@ public class Room implements Serializable {
         teamScores[0] = 0;
         teamScores[1] = 0;
         teamRoundWins[winningTeamIndex]++;
-        broadcastMessage("ROUND_WINS_UPDATE:Team A:" + teamRoundWins[0] + ":Team B:" + teamRoundWins[1]);
+        broadcast(ProtocolCodec.frame(Opcode.ROUND_WINS_UPDATE).number(teamRoundWins[0]).number(teamRoundWins[1]).toFrame());
 
-        if (teamRoundWins[winningTeamIndex] >= 7) {
-            broadcastMessage("TEAM_WINS_GAME:" + (winningTeamIndex == 0 ? "Team A" : "Team B"));
+        if (teamRoundWins[winningTeamIndex] >= TRICKS_TO_WIN) {
+            broadcast(ProtocolCodec.frame(Opcode.TEAM_WINS_GAME).flag(winningTeamIndex).toFrame());
             endGame();
         } else {
-            deck = new Deck();
-            selectMaster();
+            trumpSuit = -1;
+            trick.reset();
+            startDeal();
             dealInitialCards();
             notifyMasterToPickHokm();
         }
     }
 
-    private boolean isCardHigher(Card card1, Card card2) {
-        if (card1.getSuit().equals(hokmSuit) && !card2.getSuit().equals(hokmSuit)) {
-            return true;
-        }
-        else if (!card1.getSuit().equals(hokmSuit) && card2.getSuit().equals(hokmSuit)) {
-            return false;
-        }
-        else if (!card1.getSuit().equals(card2.getSuit())) {
-            return false;
+    private void endGame() {
+        broadcast(ProtocolCodec.frame(Opcode.GAME_OVER).toFrame());
+        if (!replaying) {
+            replay.archive(creator);
         }
-        return card1.getPower() > card2.getPower();
+        gameOver.complete(null);
     }
 
-    private void endGame() {
-        broadcastMessage("GAME_OVER");
+    // Completes on the actor once a team has won the game, for callers that have no connection to hear GAME_OVER on.
+    public CompletableFuture<Void> whenGameOver() {
+        return gameOver;
     }
 
-    public synchronized void broadcastMessage(String message) {
-        if (broadcastedMessages.contains(message)) {
-            LOGGER.log(Level.INFO, "Duplicate message detected, skipping broadcast: " + message);
-            return;
+    // Hands won by each team so far. Read it through ask, or once the game is over.
+    public int[] getRoundWins() {
+        return teamRoundWins.clone();
+    }
+
+    private void startReplay() {
+        String[] names = new String[players.size()];
+        int[] teams = new int[players.size()];
+        for (int seat = 0; seat < names.length; seat++) {
+            names[seat] = players.get(seat).getName();
+            teams[seat] = teamA.contains(names[seat]) ? 0 : 1;
         }
+        replay = new ReplayRecorder(seed, names, teams);
+    }
 
-        broadcastedMessages.add(message);
+    private long[] handMasks() {
+        long[] hands = new long[players.size()];
+        for (int seat = 0; seat < hands.length; seat++) {
+            hands[seat] = players.get(seat).getHandMask();
+        }
+        return hands;
+    }
+
+    public CompletableFuture<Void> broadcastMessage(Frame frame) {
+        return submit(() -> broadcast(frame));
+    }
 
-        List<ObjectOutputStream> failedStreams = new ArrayList<>();
+    public CompletableFuture<Void> broadcastChat(String sender, String text) {
+        return broadcastMessage(ProtocolCodec.frame(Opcode.CHAT_MESSAGE).string(sender).string(text).toFrame());
+    }
 
-        for (ObjectOutputStream client : clientStreams) {
-            try {
-                client.writeObject(message);
-                client.flush();
-            } catch (IOException e) {
-                failedStreams.add(client);
-                LOGGER.log(Level.SEVERE, "Error broadcasting message", e);
+    public CompletableFuture<Void> broadcastUserList() {
+        return submit(this::sendUserList);
+    }
+
+    // The frame is encoded once by the caller, marked for sequencing and queued with a snapshot of the recipients; it
+    // is handed to the transports when the current mailbox batch is flushed, and each transport numbers it for its
+    // own client as it writes it, direct messages carrying 0.
+    private void broadcast(Frame frame) {
+        Frame sequenced = frame.sequenced();
+        outbox.add(new Outbound(sequenced, List.copyOf(clientTransports), false));
+        if (spectatorRelay != null) {
+            spectatorFrames.add(sequenced);
+            if (++framesSinceCheckpoint >= SPECTATOR_CHECKPOINT_FRAMES) {
+                checkpointDue = true;
             }
         }
+    }
 
-        clientStreams.removeAll(failedStreams);
+    // Hands this batch's broadcasts to the relay in one go, followed by a fresh checkpoint after each trick (or once
+    // enough frames have piled up) so late spectators never have a long tail to catch up on.
+    private void publishToSpectators() {
+        if (!spectatorFrames.isEmpty()) {
+            spectatorRelay.publish(spectatorFrames);
+            spectatorFrames = new ArrayList<>();
+        }
+        if (checkpointDue) {
+            spectatorRelay.checkpoint(publicState());
+            checkpointDue = false;
+            framesSinceCheckpoint = 0;
+        }
     }
 
-    public synchronized void broadcastUserList() {
-        broadcastMessage("USER_LIST:" + String.join(",", teamA) + ":" + String.join(",", teamB));
+    // What a spectator needs to draw the table as it is now, as direct frames: the seats, master, hokm, scores and
+    // the cards on the table. Nobody's hand is in it.
+    private List<Frame> publicState() {
+        List<Frame> frames = new ArrayList<>();
+        if (!isGameStarted || players.isEmpty()) {
+            frames.add(ProtocolCodec.frame(Opcode.USER_LIST).strings(teamA).strings(teamB).toFrame());
+            return frames;
+        }
+        frames.add(ProtocolCodec.frame(Opcode.GAME_STARTING).strings(teamA).strings(teamB).toFrame());
+        if (master != null) {
+            frames.add(ProtocolCodec.frame(Opcode.MASTER_SELECTED).string(master.getName()).toFrame());
+        }
+        frames.add(ProtocolCodec.frame(Opcode.SCORE_UPDATE).number(teamScores[0]).number(teamScores[1]).toFrame());
+        frames.add(ProtocolCodec.frame(Opcode.ROUND_WINS_UPDATE).number(teamRoundWins[0]).number(teamRoundWins[1]).toFrame());
+        if (trumpSuit >= 0) {
+            frames.add(ProtocolCodec.frame(Opcode.HOKM_SELECTED).flag(trumpSuit).toFrame());
+            frames.add(ProtocolCodec.frame(Opcode.ROUND_START).number(currentRound).toFrame());
+            for (int i = 0; !trick.isEmpty() && i < players.size(); i++) {
+                int seat = (trick.getLeadSeat() + i) % players.size();
+                if (trick.getCard(seat) >= 0) {
+                    frames.add(ProtocolCodec.frame(Opcode.CARD_PLAYED).string(players.get(seat).getName())
+                            .card(Card.fromOrdinal(trick.getCard(seat))).toFrame());
+                }
+            }
+            frames.add(ProtocolCodec.frame(Opcode.PLAYER_TURN)
+                    .string(players.get(currentPlayerIndex % players.size()).getName()).toFrame());
+        }
+        return frames;
     }
 
-    private void sendMessageToPlayer(Player player, String message) {
-        try {
-            player.getOutputStream().writeObject(message);
-            player.getOutputStream().flush();
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Error sending message to player", e);
+    private void sendUserList() {
+        broadcast(ProtocolCodec.frame(Opcode.USER_LIST).strings(teamA).strings(teamB).toFrame());
+    }
+
+    // Players restored from the game log have no transport until they reattach.
+    private void sendMessageToPlayer(Player player, Frame frame) {
+        if (player.getTransport() != null) {
+            outbox.add(new Outbound(frame, List.of(player.getTransport()), false));
         }
     }
 
     private void notifyPlayerKicked(Player player) {
-        sendMessageToPlayer(player, "KICKED");
-        player.closeConnections();
+        if (player.getTransport() != null) {
+            outbox.add(new Outbound(ProtocolCodec.frame(Opcode.KICKED).toFrame(), List.of(player.getTransport()), true));
+        }
     }
 
     private void closeAllConnections() {
         for (Player player : players) {
-            try {
-                player.getOutputStream().close();
-            } catch (IOException e) {
-                LOGGER.log(Level.SEVERE, "Error closing player connection", e);
+            if (player.getTransport() != null) {
+                outbox.add(new Outbound(null, List.of(player.getTransport()), true));
             }
         }
     }
+
+    // Starts logging this room: the first record is a full snapshot, every state change after it is one small event,
+    // and another snapshot every SNAPSHOT_TRICKS tricks keeps the tail that recovery has to replay short.
+    public CompletableFuture<Void> setGameLog(GameLog gameLog) {
+        return submit(() -> {
+            this.gameLog = gameLog;
+            writeSnapshot();
+        });
+    }
+
+    private void record(int type, String name, int value) {
+        if (gameLog == null || replaying) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            out.writeUTF(name);
+            out.writeByte(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        gameLog.append(creator, bytes.toByteArray());
+    }
+
+    private void writeSnapshot() {
+        tricksSinceSnapshot = 0;
+        if (gameLog == null || replaying) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(this);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not snapshot " + creator + "'s room", e);
+            return;
+        }
+        gameLog.snapshot(creator, bytes.toByteArray());
+    }
+
+    // Rebuilds a room from its latest snapshot by replaying the events logged after it through the same code that
+    // produced them. Deals come from the seed, so the replay ends in exactly the state the room was in. Nothing is
+    // sent to anyone while replaying.
+    public static Room restore(GameLog.Recovered recovered) throws IOException, ClassNotFoundException {
+        Room room;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(recovered.getSnapshot()))) {
+            room = (Room) in.readObject();
+        }
+        room.replaying = true;
+        for (byte[] event : recovered.getEvents()) {
+            room.apply(event);
+        }
+        room.replaying = false;
+        room.outbox.clear();
+        room.submit(room::promptBot);
+        return room;
+    }
+
+    private void apply(byte[] event) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(event));
+        int type = in.readUnsignedByte();
+        String name = in.readUTF();
+        int value = in.readUnsignedByte();
+        switch (type) {
+            case EVENT_JOINED -> join(value == 1 ? new BotPlayer(name) : new Player(name, null));
+            case EVENT_LEFT -> leave(name);
+            case EVENT_STARTED -> start();
+            case EVENT_HOKM -> chooseHokm(value);
+            case EVENT_PLAYED -> play(getPlayerByName(name), Card.fromOrdinal(value));
+            default -> throw new IOException("Unknown game event " + type + " in " + creator + "'s room");
+        }
+    }
+
+    // Called by the actor after each mailbox batch. Frames for the same client are handed over together, in the
+    // order the game produced them; a transport whose queue overflowed past its policy is dropped from the room.
+    private void flushOutbox() {
+        if (spectatorRelay != null) {
+            publishToSpectators();
+        }
+        if (outbox.isEmpty()) {
+            return;
+        }
+        Map<ClientTransport, List<Frame>> batches = new LinkedHashMap<>();
+        Set<ClientTransport> closing = new HashSet<>();
+        for (Outbound outbound : outbox) {
+            for (ClientTransport recipient : outbound.recipients) {
+                if (recipient == null || closing.contains(recipient)) {
+                    continue;
+                }
+                List<Frame> batch = batches.computeIfAbsent(recipient, key -> new ArrayList<>());
+                if (outbound.frame != null) {
+                    batch.add(outbound.frame);
+                }
+                if (outbound.closeAfter) {
+                    closing.add(recipient);
+                }
+            }
+        }
+        outbox.clear();
+
+        List<ClientTransport> failed = new ArrayList<>();
+        batches.forEach((recipient, frames) -> {
+            if (!frames.isEmpty() && !recipient.send(frames)) {
+                failed.add(recipient);
+                LOGGER.log(Level.WARNING, "Dropping disconnected client " + recipient);
+            }
+        });
+        closing.forEach(ClientTransport::closeWhenDrained);
+        clientTransports.removeAll(failed);
+    }
+
+    private static class Outbound {
+        private final Frame frame;
+        private final List<ClientTransport> recipients;
+        private final boolean closeAfter;
+
+        private Outbound(Frame frame, List<ClientTransport> recipients, boolean closeAfter) {
+            this.frame = frame;
+            this.recipients = recipients;
+            this.closeAfter = closeAfter;
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.yourpackage;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class RoomEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        SNAPSHOT,
+        ROOM_ADDED,
+        ROOM_REMOVED,
+        PLAYER_JOINED,
+        PLAYER_LEFT,
+        ROOM_FULL,
+        GAME_STARTED
+    }
+
+    private final Type type;
+    private final long version;
+    private final String creator;
+    private final String playerName;
+    private final RoomSummary room;
+    private final List<RoomSummary> rooms;
+
+    private RoomEvent(Type type, long version, String creator, String playerName, RoomSummary room, List<RoomSummary> rooms) {
+        this.type = type;
+        this.version = version;
+        this.creator = creator;
+        this.playerName = playerName;
+        this.room = room;
+        this.rooms = rooms;
+    }
+
+    public static RoomEvent snapshot(long version, List<RoomSummary> rooms) {
+        return new RoomEvent(Type.SNAPSHOT, version, null, null, null, rooms);
+    }
+
+    public static RoomEvent of(Type type, long version, RoomSummary room, String playerName) {
+        return new RoomEvent(type, version, room.getCreator(), playerName, room, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public RoomSummary getRoom() {
+        return room;
+    }
+
+    public List<RoomSummary> getRooms() {
+        return rooms;
+    }
+}
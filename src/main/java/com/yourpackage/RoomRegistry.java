@@ -0,0 +1,288 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Every live room, keyed by its creator. Rooms are spread over segments by hash: lookups read a segment's hash index
+// without locking, while creating or removing a room only locks the one segment it lives in. Each segment also keeps
+// its rooms sorted so the lobby can walk stable pages however many rooms there are. The registry owns the lobby feed,
+// which reads its snapshots from here.
+public class RoomRegistry {
+    private static final Logger LOGGER = Logger.getLogger(RoomRegistry.class.getName());
+    private static final int SEGMENTS = Integer.getInteger("hokm.registry.segments", 64);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("hokm.registry.idleTimeoutMs", 30 * 60 * 1000L);
+    private static final long EMPTY_TIMEOUT_MS = Long.getLong("hokm.registry.emptyTimeoutMs", 60 * 1000L);
+    private static final long REAP_INTERVAL_MS = Long.getLong("hokm.registry.reapIntervalMs", 30 * 1000L);
+    private static final long METRICS_INTERVAL_MS = Long.getLong("hokm.metrics.intervalMs", 60 * 1000L);
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final LobbyFeed lobbyFeed;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile GameLog gameLog;
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "room-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RoomRegistry() {
+        this(SEGMENTS);
+    }
+
+    public RoomRegistry(int segmentCount) {
+        this.segments = new Segment[Integer.highestOneBit(Math.max(1, segmentCount - 1)) << 1];
+        this.segmentShift = Integer.SIZE - Integer.numberOfTrailingZeros(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        this.lobbyFeed = new LobbyFeed(this);
+        reaper.scheduleWithFixedDelay(this::reap, REAP_INTERVAL_MS, REAP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        reaper.scheduleWithFixedDelay(this::logMetrics, METRICS_INTERVAL_MS, METRICS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Returns the new room, or null when the creator already has an open one. A closed room the reaper has not got to
+    // yet is replaced.
+    public Room create(String creator, int maxPlayers, int totalRounds) {
+        Segment segment = segmentFor(creator);
+        Room room;
+        segment.lock.lock();
+        try {
+            Room existing = segment.index.get(creator);
+            if (existing != null && !existing.isClosed()) {
+                return null;
+            }
+            room = new Room(creator, maxPlayers, totalRounds);
+            segment.index.put(creator, room);
+            segment.ordered.put(creator, room);
+            if (existing == null) {
+                size.incrementAndGet();
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        if (gameLog != null) {
+            room.setGameLog(gameLog);
+        }
+        lobbyFeed.roomAdded(room);
+        return room;
+    }
+
+    // Brings back every room the log says was still open, then logs them and any room created from now on. Call once
+    // at startup, before any rooms are created; players get back in with Room.reattach.
+    public int recover(GameLog log) {
+        int restored = 0;
+        for (GameLog.Recovered recovered : log.getRecovered().values()) {
+            Room room;
+            try {
+                room = Room.restore(recovered);
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not restore room " + recovered.getRoomId(), e);
+                continue;
+            }
+            Segment segment = segmentFor(room.getCreator());
+            segment.lock.lock();
+            try {
+                if (segment.index.putIfAbsent(room.getCreator(), room) != null) {
+                    continue;
+                }
+                segment.ordered.put(room.getCreator(), room);
+                size.incrementAndGet();
+            } finally {
+                segment.lock.unlock();
+            }
+            room.setGameLog(log);
+            lobbyFeed.roomAdded(room);
+            restored++;
+        }
+        gameLog = log;
+        LOGGER.info("Restored " + restored + " rooms from the game log");
+        return restored;
+    }
+
+    public LobbyFeed getLobbyFeed() {
+        return lobbyFeed;
+    }
+
+    public Room get(String creator) {
+        return segmentFor(creator).index.get(creator);
+    }
+
+    // Closes the room (which also takes it off the lobby feed) and forgets it.
+    public boolean remove(String creator) {
+        Segment segment = segmentFor(creator);
+        Room room;
+        segment.lock.lock();
+        try {
+            room = segment.index.remove(creator);
+            if (room == null) {
+                return false;
+            }
+            segment.ordered.remove(creator);
+            size.decrementAndGet();
+        } finally {
+            segment.lock.unlock();
+        }
+        room.closeRoom();
+        return true;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    // The cursor is opaque to callers: pass null for the first page and Page.getNextCursor() for the ones after it.
+    // Rooms created or removed while paging may or may not show up, but no room is ever listed twice. Rooms that have
+    // closed but not been reaped yet are left out.
+    public Page page(String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        int segmentIndex = 0;
+        String after = null;
+        if (cursor != null) {
+            int separator = cursor.indexOf(':');
+            segmentIndex = Integer.parseInt(cursor.substring(0, separator));
+            after = separator + 1 == cursor.length() ? null : cursor.substring(separator + 1);
+        }
+
+        List<RoomSummary> summaries = new ArrayList<>(Math.min(limit, size.get()));
+        for (; segmentIndex < segments.length; segmentIndex++, after = null) {
+            Map<String, Room> rooms = after == null
+                    ? segments[segmentIndex].ordered
+                    : segments[segmentIndex].ordered.tailMap(after, false);
+            for (Map.Entry<String, Room> entry : rooms.entrySet()) {
+                if (summaries.size() == limit) {
+                    return new Page(summaries, segmentIndex + ":" + (after == null ? "" : after));
+                }
+                after = entry.getKey();
+                if (!entry.getValue().isClosed()) {
+                    summaries.add(entry.getValue().getSummary());
+                }
+            }
+        }
+        return new Page(summaries, null);
+    }
+
+    public void shutdown() {
+        reaper.shutdownNow();
+    }
+
+    // Drops rooms that were closed, have sat empty past EMPTY_TIMEOUT_MS, or have had no commands at all for
+    // IDLE_TIMEOUT_MS.
+    private void reap() {
+        long now = System.nanoTime();
+        int reaped = 0;
+        for (Segment segment : segments) {
+            for (Room room : segment.index.values()) {
+                long idleMs = TimeUnit.NANOSECONDS.toMillis(now - room.getLastActivityNanos());
+                boolean abandoned = idleMs > IDLE_TIMEOUT_MS
+                        || (idleMs > EMPTY_TIMEOUT_MS && room.getPlayers().isEmpty());
+                if ((room.isClosed() || abandoned) && remove(segment, room)) {
+                    room.closeRoom();
+                    reaped++;
+                }
+            }
+        }
+        if (reaped > 0) {
+            LOGGER.info("Reaped " + reaped + " rooms, " + size.get() + " still live");
+        }
+    }
+
+    // One line per interval for sizing a node: the rooms, what their players' connections have queued, dropped and
+    // waited on, and what the bots cost. The transport counts are totals since each connection opened.
+    private void logMetrics() {
+        int rooms = 0;
+        int players = 0;
+        int spectators = 0;
+        int queued = 0;
+        int peakQueued = 0;
+        long dropped = 0;
+        long coalesced = 0;
+        long written = 0;
+        long blockedNanos = 0;
+        for (Segment segment : segments) {
+            for (Room room : segment.index.values()) {
+                if (room.isClosed()) {
+                    continue;
+                }
+                rooms++;
+                spectators += room.getSpectatorCount();
+                for (Player player : room.getPlayers()) {
+                    players++;
+                    ClientTransport transport = player.getTransport();
+                    if (transport != null) {
+                        queued += transport.getQueueDepth();
+                        peakQueued = Math.max(peakQueued, transport.getPeakQueueDepth());
+                        dropped += transport.getDroppedFrames();
+                        coalesced += transport.getCoalescedFrames();
+                        written += transport.getFramesWritten();
+                        blockedNanos += transport.getBlockedNanos();
+                    }
+                }
+            }
+        }
+        LOGGER.info(String.format("%d rooms, %d players, %d spectators; frames queued %d (peak %d), written %d, "
+                        + "coalesced %d, dropped %d, %dms blocked in writes; %s", rooms, players, spectators, queued,
+                peakQueued, written, coalesced, dropped, TimeUnit.NANOSECONDS.toMillis(blockedNanos),
+                MonteCarloBot.describeMetrics()));
+    }
+
+    // Only removes the exact room that was inspected, in case the creator has since opened a new one.
+    private boolean remove(Segment segment, Room room) {
+        segment.lock.lock();
+        try {
+            if (segment.index.remove(room.getCreator(), room)) {
+                segment.ordered.remove(room.getCreator());
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Takes the top bits of a multiplied hash. The low bits are the ones each segment's map buckets by, and if they
+    // also picked the segment, every creator in a segment would share them and crowd into a fraction of its buckets.
+    private Segment segmentFor(String creator) {
+        return segments[(creator.hashCode() * 0x9E3779B9) >>> segmentShift];
+    }
+
+    private static class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ConcurrentHashMap<String, Room> index = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Room> ordered = new ConcurrentSkipListMap<>();
+    }
+
+    public static class Page {
+        private final List<RoomSummary> rooms;
+        private final String nextCursor;
+
+        private Page(List<RoomSummary> rooms, String nextCursor) {
+            this.rooms = Collections.unmodifiableList(rooms);
+            this.nextCursor = nextCursor;
+        }
+
+        public List<RoomSummary> getRooms() {
+            return rooms;
+        }
+
+        // Null on the last page.
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.yourpackage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// What the lobby needs to draw a room. On the wire it is a few bytes per room: flags, the player count,
+// and UTF strings for the creator and the seated players.
+public final class RoomSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int FLAG_FULL = 1;
+    private static final int FLAG_GAME_STARTED = 2;
+
+    private final String creator;
+    private final int maxPlayers;
+    private final boolean full;
+    private final boolean gameStarted;
+    private final List<String> playerNames;
+
+    public RoomSummary(String creator, int maxPlayers, boolean full, boolean gameStarted, List<String> playerNames) {
+        this.creator = creator;
+        this.maxPlayers = maxPlayers;
+        this.full = full;
+        this.gameStarted = gameStarted;
+        this.playerNames = Collections.unmodifiableList(new ArrayList<>(playerNames));
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public boolean isGameStarted() {
+        return gameStarted;
+    }
+
+    public List<String> getPlayerNames() {
+        return playerNames;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(creator);
+        out.writeByte(maxPlayers);
+        out.writeByte((full ? FLAG_FULL : 0) | (gameStarted ? FLAG_GAME_STARTED : 0));
+        out.writeByte(playerNames.size());
+        for (String playerName : playerNames) {
+            out.writeUTF(playerName);
+        }
+    }
+
+    public static RoomSummary readFrom(DataInput in) throws IOException {
+        String creator = in.readUTF();
+        int maxPlayers = in.readUnsignedByte();
+        int flags = in.readUnsignedByte();
+        int playerCount = in.readUnsignedByte();
+        List<String> playerNames = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            playerNames.add(in.readUTF());
+        }
+        return new RoomSummary(creator, maxPlayers, (flags & FLAG_FULL) != 0, (flags & FLAG_GAME_STARTED) != 0, playerNames);
+    }
+
+    // Java serialization goes through the compact encoding instead of the default field-by-field form.
+    private Object writeReplace() {
+        return new WireForm(this);
+    }
+
+    private static final class WireForm implements Externalizable {
+        private static final long serialVersionUID = 1L;
+        private RoomSummary summary;
+
+        public WireForm() {
+        }
+
+        private WireForm(RoomSummary summary) {
+            this.summary = summary;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            summary.writeTo(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            summary = readFrom(in);
+        }
+
+        private Object readResolve() {
+            return summary;
+        }
+    }
+}
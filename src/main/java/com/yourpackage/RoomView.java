@@ -6,9 +6,12 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,8 +31,8 @@ public class RoomView {
     private JPanel teamBPanel;
     private JTextArea chatArea;
     private JTextField chatInput;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private DataOutputStream out;
+    private DataInputStream in;
     private Socket socket;
     private final int maxPlayers;
     private JButton startGameButton;
@@ -150,41 +153,39 @@ public class RoomView {
     private void setupConnection() {
         try {
             socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
 
-            sendRequest("JOIN_ROOM:" + roomCreator + ":" + username);
+            sendRequest(ProtocolCodec.frame(Opcode.JOIN_ROOM).string(roomCreator).string(username).build());
 
             new Thread(() -> {
                 try {
                     while (true) {
-                        Object received = in.readObject();
-                        if (received instanceof String message) {
-                            LOGGER.info("Received messageeeee: " + message);
-                            if (message.startsWith("START_GAME:")) {
-
-                                String[] parts = message.split(":");
-                                List<String> teamA = List.of(parts[1].split(","));
-                                List<String> teamB = List.of(parts[2].split(","));
-                                SwingUtilities.invokeLater(() -> new GameUI(username, roomCreator, out, in, socket));
-                                frame.dispose();
-                                break;
-                            } else if ("KICKED".equals(message)) {
-                                JOptionPane.showMessageDialog(frame, "You have been kicked from the room.", "Kicked", JOptionPane.WARNING_MESSAGE);
-                                closeRoom();
-                                break;
-                            } else if ("ROOM_CLOSED".equals(message)) {
-                                JOptionPane.showMessageDialog(frame, "The room has been closed by the creator.", "Room Closed", JOptionPane.INFORMATION_MESSAGE);
-                                closeRoom();
-                                break;
-                            } else if (message.startsWith("USER_LIST:")) {
-                                handleUserListMessage(message);
-                            } else {
-                                updateChatArea(message);
-                            }
+                        ProtocolCodec.Message message = ProtocolCodec.read(in);
+                        LOGGER.info("Received message: " + message);
+                        if (message.getOpcode() == Opcode.GAME_STARTING) {
+                            SwingUtilities.invokeLater(() -> new GameUI(username, roomCreator, out, in, socket));
+                            frame.dispose();
+                            break;
+                        } else if (message.getOpcode() == Opcode.KICKED) {
+                            JOptionPane.showMessageDialog(frame, "You have been kicked from the room.", "Kicked", JOptionPane.WARNING_MESSAGE);
+                            closeRoom();
+                            break;
+                        } else if (message.getOpcode() == Opcode.ROOM_CLOSED) {
+                            JOptionPane.showMessageDialog(frame, "The room has been closed by the creator.", "Room Closed", JOptionPane.INFORMATION_MESSAGE);
+                            closeRoom();
+                            break;
+                        } else if (message.getOpcode() == Opcode.USER_LIST) {
+                            handleUserListMessage(message.readStrings(), message.readStrings());
+                        } else if (message.getOpcode() == Opcode.CHAT_MESSAGE) {
+                            updateChatArea(message.readString() + ": " + message.readString());
+                        } else if (message.getOpcode() == Opcode.NOTICE || message.getOpcode() == Opcode.ERROR) {
+                            updateChatArea(message.readString());
+                        } else {
+                            LOGGER.info("Unhandled message in room: " + message);
                         }
                     }
-                } catch (IOException | ClassNotFoundException e) {
+                } catch (IOException | UncheckedIOException e) {
                     LOGGER.log(Level.SEVERE, "Error in chat message handling", e);
                 }
             }).start();
@@ -194,20 +195,9 @@ public class RoomView {
         }
     }
 
-    private void handleUserListMessage(String message) {
-        String userList = message.substring("USER_LIST:".length());
-        String[] teams = userList.split(":");
-
-        List<String> teamA = new ArrayList<>();
-        List<String> teamB = new ArrayList<>();
-
-        if (teams.length > 0) {
-            teamA = new ArrayList<>(List.of(teams[0].split(",")));
-        }
-
-        if (teams.length > 1) {
-            teamB = new ArrayList<>(List.of(teams[1].split(",")));
-        }
+    private void handleUserListMessage(List<String> teamAPlayers, List<String> teamBPlayers) {
+        List<String> teamA = new ArrayList<>(teamAPlayers);
+        List<String> teamB = new ArrayList<>(teamBPlayers);
 
         // Fill remaining slots with "Empty Player" placeholders if needed
         while (teamA.size() < 2) {
@@ -327,12 +317,12 @@ public class RoomView {
 
     private void sendMessage() {
         String message = chatInput.getText();
-        sendRequest("CHAT:" + roomCreator + ":" + username + ":" + message);
+        sendRequest(ProtocolCodec.frame(Opcode.CHAT).string(roomCreator).string(username).string(message).build());
         chatInput.setText("");
     }
 
     private void leaveRoom() {
-        sendRequest("LEAVE_ROOM:" + roomCreator + ":" + username);
+        sendRequest(ProtocolCodec.frame(Opcode.LEAVE_ROOM).string(roomCreator).string(username).build());
         closeRoom();
     }
 
@@ -355,7 +345,7 @@ public class RoomView {
     }
 
     private void kickUser(String user) {
-        sendRequest("KICK_USER:" + roomCreator + ":" + user);
+        sendRequest(ProtocolCodec.frame(Opcode.KICK_USER).string(roomCreator).string(user).build());
     }
 
     private void startGame() {
@@ -376,15 +366,14 @@ public class RoomView {
             }
         }
 
-        sendRequest("START_GAME:" + roomCreator + ":" + username + ":" + String.join(",", teamA) + ":" + String.join(",", teamB));
+        sendRequest(ProtocolCodec.frame(Opcode.START_GAME).string(roomCreator).string(username).strings(teamA).strings(teamB).build());
     }
 
-    private void sendRequest(String request) {
+    private void sendRequest(byte[] request) {
         try {
-            out.writeObject(request);
-            out.flush();
+            ProtocolCodec.write(out, request);
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Error sending request: " + request, e);
+            LOGGER.log(Level.SEVERE, "Error sending request: " + Opcode.fromCode(request[3]), e);
         }
     }
 }
@@ -2,22 +2,23 @@
 
     import javax.swing.*;
     import java.awt.*;
-    import java.io.IOException;
-    import java.io.ObjectInputStream;
-    import java.io.ObjectOutputStream;
-    import java.net.Socket;
+    import java.util.ArrayList;
+    import java.util.LinkedHashMap;
     import java.util.List;
+    import java.util.Map;
     import java.util.Objects;
     import java.util.logging.Level;
     import java.util.logging.Logger;
 
     public class RoomsPage {
-        private static final String SERVER_ADDRESS = "localhost";
-        private static final int SERVER_PORT = 12345;
         private static final Logger LOGGER = Logger.getLogger(RoomsPage.class.getName());
 
+        private final LobbyConnection lobby = LobbyConnection.getInstance();
         private JPanel roomsPanel;
         private JFrame frame;
+        private final Map<String, RoomSummary> rooms = new LinkedHashMap<>();
+        private long roomsVersion = -1;
+        private long subscriptionId;
 
         public void createAndShowGUI(String username) {
             frame = new JFrame();
@@ -68,10 +69,8 @@
             frame.add(scrollPane, BorderLayout.CENTER);
 
             frame.setVisible(true);
-            fetchAndDisplayRooms(username);
-
-            Timer timer = new Timer(2000, e -> fetchAndDisplayRooms(username));
-            timer.start();
+            subscriptionId = lobby.subscribe("SUBSCRIBE_ROOMS",
+                    event -> SwingUtilities.invokeLater(() -> applyRoomEvent((RoomEvent) event, username)));
         }
 
         private void configureButton(JButton button, String text) {
@@ -82,46 +81,60 @@
             button.setForeground(Color.white);
         }
 
-        private void fetchAndDisplayRooms(String username) {
-            try (Socket socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
-                 ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
-                 ObjectInputStream in = new ObjectInputStream(socket.getInputStream())) {
-
-                out.writeObject("GET_ROOMS");
-                out.flush();
-
-                List<Room> rooms = (List<Room>) in.readObject();
-
-                roomsPanel.removeAll();
+        // Events are applied strictly in version order; anything that skips a version means a change was missed,
+        // so the model is dropped and a fresh snapshot is requested.
+        private void applyRoomEvent(RoomEvent event, String username) {
+            // Events already queued on the EDT when the lobby was left still arrive here.
+            if (!frame.isDisplayable()) {
+                return;
+            }
+            if (event.getType() == RoomEvent.Type.SNAPSHOT) {
+                rooms.clear();
+                for (RoomSummary room : event.getRooms()) {
+                    rooms.put(room.getCreator(), room);
+                }
+            } else if (roomsVersion < 0 || event.getVersion() <= roomsVersion) {
+                return;
+            } else if (event.getVersion() != roomsVersion + 1) {
+                LOGGER.warning("Missed room updates between " + roomsVersion + " and " + event.getVersion() + ", resubscribing");
+                roomsVersion = -1;
+                lobby.resubscribe(subscriptionId);
+                return;
+            } else if (event.getType() == RoomEvent.Type.ROOM_REMOVED) {
+                rooms.remove(event.getCreator());
+            } else {
+                rooms.put(event.getCreator(), event.getRoom());
+            }
+            roomsVersion = event.getVersion();
+            displayRooms(new ArrayList<>(rooms.values()), username);
+        }
 
-                GridBagConstraints gbc = new GridBagConstraints();
-                gbc.insets = new Insets(10, 10, 10, 10);
-                gbc.gridx = 0;
-                gbc.gridy = 0;
-                gbc.gridwidth = 1;
-                gbc.fill = GridBagConstraints.HORIZONTAL;
+        private void displayRooms(List<RoomSummary> rooms, String username) {
+            roomsPanel.removeAll();
 
-                for (Room room : rooms) {
-                    if (room.getCreator() != null) {
-                        JPanel roomPanel = createRoomPanel(room, username);
-                        roomsPanel.add(roomPanel, gbc);
-                        gbc.gridy++;
-                    }
-                }
+            GridBagConstraints gbc = new GridBagConstraints();
+            gbc.insets = new Insets(10, 10, 10, 10);
+            gbc.gridx = 0;
+            gbc.gridy = 0;
+            gbc.gridwidth = 1;
+            gbc.fill = GridBagConstraints.HORIZONTAL;
 
-                for (int i = rooms.size(); i < 3; i++) {
-                    JPanel emptyRoomPanel = createEmptyRoomPanel();
-                    roomsPanel.add(emptyRoomPanel, gbc);
+            for (RoomSummary room : rooms) {
+                if (room.getCreator() != null) {
+                    JPanel roomPanel = createRoomPanel(room, username);
+                    roomsPanel.add(roomPanel, gbc);
                     gbc.gridy++;
                 }
+            }
 
-                roomsPanel.revalidate();
-                roomsPanel.repaint();
-
-            } catch (IOException | ClassNotFoundException e) {
-                LOGGER.log(Level.SEVERE, "Error fetching and displaying rooms", e);
-                JOptionPane.showMessageDialog(null, "Error fetching rooms: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            for (int i = rooms.size(); i < 3; i++) {
+                JPanel emptyRoomPanel = createEmptyRoomPanel();
+                roomsPanel.add(emptyRoomPanel, gbc);
+                gbc.gridy++;
             }
+
+            roomsPanel.revalidate();
+            roomsPanel.repaint();
         }
 
         private void showPlayerOptions(String username) {
@@ -155,35 +168,32 @@
         }
 
         private void createRoom(String username, JFrame frame, int maxPlayers, int rounds) {
-            try (Socket socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
-                 ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
-                 ObjectInputStream in = new ObjectInputStream(socket.getInputStream())) {
-
-                LOGGER.info("Sending request to create room");
-                out.writeObject("CREATE_ROOM:" + username + ":" + maxPlayers + ":" + rounds);
-                out.flush();
-                LOGGER.info("Request sent: CREATE_ROOM:" + username + ":" + maxPlayers);
-
-                String response = (String) in.readObject();
+            LOGGER.info("Sending request to create room");
+            lobby.request("CREATE_ROOM:" + username + ":" + maxPlayers + ":" + rounds).whenComplete((reply, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) {
+                    LOGGER.log(Level.SEVERE, "Error creating room", error);
+                    JOptionPane.showMessageDialog(null, "Error creating room: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                String response = (String) reply;
                 LOGGER.info("Response from server: " + response);
                 if (response.startsWith("ROOM_CREATED")) {
                     JOptionPane.showMessageDialog(null, "Room created successfully!");
-                    fetchAndDisplayRooms(username); // Fetch and display rooms immediately after creating a room
-                    frame.dispose();
+                    leaveLobby();
                     new RoomView(username, username, maxPlayers);
                 } else {
                     JOptionPane.showMessageDialog(null, "Failed to create room! Response: " + response);
                 }
-
-            } catch (IOException | ClassNotFoundException e) {
-                LOGGER.log(Level.SEVERE, "Error creating room", e);
-                JOptionPane.showMessageDialog(null, "Error creating room: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            }));
         }
 
+        private void leaveLobby() {
+            lobby.unsubscribe(subscriptionId, "UNSUBSCRIBE_ROOMS");
+            lobby.close();
+            frame.dispose();
+        }
 
-
-        private JPanel createRoomPanel(Room room, String username) {
+        private JPanel createRoomPanel(RoomSummary room, String username) {
             JPanel panel = new JPanel();
             panel.setPreferredSize(new Dimension(500, 200));
             panel.setBorder(BorderFactory.createLineBorder(Color.BLACK, 1));
@@ -208,13 +218,12 @@
                 joinRoomButton.setEnabled(false);
             } else {
                 joinRoomButton.addActionListener(e -> {
-
-                    frame.dispose();
+                    leaveLobby();
                     new RoomView(username, room.getCreator(), room.getMaxPlayers());
                 });
             }
 
-            List<Player> players = room.getPlayers();
+            List<String> players = room.getPlayerNames();
             for (int i = 0; i < room.getMaxPlayers(); i++) {
                 gbc.gridy = 1;
                 gbc.gridx = i;
@@ -231,7 +240,7 @@
 
                 gbc.gridy = 2;
                 JLabel playerLabel = new JLabel();
-                playerLabel.setText(i < players.size() ? (players.get(i).getName()) : "Empty Slot");
+                playerLabel.setText(i < players.size() ? players.get(i) : "Empty Slot");
                 panel.add(playerLabel, gbc);
             }
 
@@ -0,0 +1,344 @@
+package com.yourpackage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Plays whole games between two strategies without a server: each game is a Room whose four seats are BotPlayers
+// with no connection, so deals, hokm, turns, trick winners and scoring are the room's own and a rule change there
+// shows up here as it is. Games run in parallel and every pair of games replays the same seed with the teams swapped,
+// so neither strategy is helped by the cards. Run it overnight to compare bot versions or to see what a rule change
+// does to the game:
+//
+//   SelfPlay 10000 greedy random
+//   java -Dhokm.bot.budgetMs=20 -Dhokm.bot.threads=1 ... SelfPlay 400 bot greedy
+public class SelfPlay {
+    private static final int SEATS = 4;
+    // Two-sided 95% normal quantile, for the confidence intervals.
+    private static final double Z = 1.96;
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: SelfPlay <games> <strategy A> <strategy B> [seed]");
+            System.err.println("Strategies: random, greedy, bot");
+            System.exit(1);
+        }
+        // Every game is a room, and rooms log each start.
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int games = Integer.parseInt(args[0]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        Report report = run(games, strategy(args[1]), strategy(args[2]), seed);
+        System.out.println("A = " + args[1] + ", B = " + args[2] + ", seed " + seed);
+        System.out.println(report);
+        System.exit(report.failures.isEmpty() ? 0 : 2);
+    }
+
+    public static BotPlayer.Strategy strategy(String name) {
+        switch (name) {
+            case "random":
+                return RANDOM;
+            case "greedy":
+                return GREEDY;
+            case "bot":
+                return MONTE_CARLO;
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+    }
+
+    // Game g plays seed + g / 2; strategy A has team A in even games and team B in odd ones.
+    public static Report run(int games, BotPlayer.Strategy a, BotPlayer.Strategy b, long seed) {
+        long start = System.nanoTime();
+        List<Result> results = IntStream.range(0, games).parallel().mapToObj(game -> {
+            boolean swapped = game % 2 == 1;
+            try {
+                return play(seed + game / 2, swapped ? b : a, swapped ? a : b).forA(swapped);
+            } catch (CompletionException e) {
+                return new Result(-1, new int[2], 0, "game " + game + ": " + e.getCause());
+            } catch (RuntimeException e) {
+                return new Result(-1, new int[2], 0, "game " + game + ": " + e);
+            }
+        }).collect(Collectors.toList());
+
+        Report report = new Report();
+        for (Result result : results) {
+            if (result.failure != null) {
+                report.failures.add(result.failure);
+                continue;
+            }
+            report.games++;
+            report.gamesWon += result.winner == 0 ? 1 : 0;
+            report.hands += result.handsWon[0] + result.handsWon[1];
+            report.handsWon += result.handsWon[0];
+            report.tricks += result.tricks;
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        if (a == MONTE_CARLO || b == MONTE_CARLO) {
+            report.bots = MonteCarloBot.describeMetrics();
+        }
+        return report;
+    }
+
+    // One game in a Room of four BotPlayers without connections: teamA's strategy on seats 0 and 2 and teamB's on 1
+    // and 3, the way Room seats them into teams. The result is by team.
+    public static Result play(long seed, BotPlayer.Strategy teamA, BotPlayer.Strategy teamB) {
+        Room room = new Room("self-play", SEATS, Room.TRICKS_TO_WIN, seed);
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        AtomicLong cards = new AtomicLong();
+        BotPlayer.Strategy[] strategies = {teamA, teamB, teamA, teamB};
+        for (int seat = 0; seat < SEATS; seat++) {
+            room.addPlayer(new BotPlayer("seat " + seat, checked(seat, strategies[seat], failed, cards)));
+        }
+        room.startGame();
+        try {
+            CompletableFuture.anyOf(room.whenGameOver(), failed).join();
+            int[] handsWon = room.ask(room::getRoundWins).join();
+            return new Result(handsWon[0] >= Room.TRICKS_TO_WIN ? 0 : 1, handsWon, cards.get() / SEATS, null);
+        } finally {
+            room.closeRoom();
+        }
+    }
+
+    // Room would only reject an illegal choice, and a bot has no connection to hear it on, so the game would stall.
+    // Instead the first bad choice, or a strategy that throws, ends the game as a failure.
+    private static BotPlayer.Strategy checked(int seat, BotPlayer.Strategy strategy, CompletableFuture<Void> failed,
+                                              AtomicLong cards) {
+        return new BotPlayer.Strategy() {
+            @Override
+            public int chooseHokm(MonteCarloBot.Position position) {
+                int suit = decide(() -> strategy.chooseHokm(position));
+                if (suit < 0 || suit >= Cards.SUIT_COUNT) {
+                    throw fail("seat " + seat + " chose hokm " + suit);
+                }
+                return suit;
+            }
+
+            @Override
+            public int chooseCard(MonteCarloBot.Position position) {
+                int card = decide(() -> strategy.chooseCard(position));
+                MoveError error = card >= 0 && card < Cards.DECK_SIZE
+                        ? MoveError.check(position.getHand(), card, position.getLeadSuit())
+                        : MoveError.CARD_NOT_IN_HAND;
+                if (error != null) {
+                    throw fail("seat " + seat + " played " + card + ": " + error);
+                }
+                cards.incrementAndGet();
+                return card;
+            }
+
+            private int decide(IntSupplier decision) {
+                try {
+                    return decision.getAsInt();
+                } catch (RuntimeException e) {
+                    failed.completeExceptionally(e);
+                    throw e;
+                }
+            }
+
+            private IllegalStateException fail(String message) {
+                IllegalStateException error = new IllegalStateException(message);
+                failed.completeExceptionally(error);
+                return error;
+            }
+        };
+    }
+
+    // Any legal card, any suit: the floor every other strategy should clear.
+    public static final BotPlayer.Strategy RANDOM = new BotPlayer.Strategy() {
+        @Override
+        public int chooseHokm(MonteCarloBot.Position position) {
+            return ThreadLocalRandom.current().nextInt(Cards.SUIT_COUNT);
+        }
+
+        @Override
+        public int chooseCard(MonteCarloBot.Position position) {
+            long legal = position.legalCards();
+            for (int skip = ThreadLocalRandom.current().nextInt(Cards.count(legal)); skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            return Cards.lowest(legal);
+        }
+    };
+
+    // Plays each trick on its own: lead the top card of the longest side suit, win as cheaply as possible unless the
+    // partner already has the trick, and otherwise throw the cheapest card. Hokm is the longest suit, high cards
+    // breaking ties.
+    public static final BotPlayer.Strategy GREEDY = new BotPlayer.Strategy() {
+        @Override
+        public int chooseHokm(MonteCarloBot.Position position) {
+            int best = 0;
+            int bestScore = -1;
+            for (int suit = 0; suit < Cards.SUIT_COUNT; suit++) {
+                long cards = Cards.inSuit(position.getHand(), suit);
+                int score = Cards.count(cards) * Cards.SUIT_SIZE + (cards == 0 ? 0 : Cards.rank(Cards.highest(cards)));
+                if (score > bestScore) {
+                    best = suit;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public int chooseCard(MonteCarloBot.Position position) {
+            long legal = position.legalCards();
+            int trump = position.getTrump();
+            int leadSuit = position.getLeadSuit();
+            if (leadSuit < 0) {
+                long side = trump >= 0 && (legal & ~Cards.suitMask(trump)) != 0 ? legal & ~Cards.suitMask(trump) : legal;
+                int longest = -1;
+                for (int suit = 0; suit < Cards.SUIT_COUNT; suit++) {
+                    if (longest < 0 || Cards.count(Cards.inSuit(side, suit)) > Cards.count(Cards.inSuit(side, longest))) {
+                        longest = suit;
+                    }
+                }
+                return Cards.highest(Cards.inSuit(side, longest));
+            }
+            int[] trick = position.getTrick();
+            int winner = -1;
+            for (int seat = 0; seat < trick.length; seat++) {
+                if (trick[seat] >= 0 && (winner < 0 || TrickResolver.strength(trick[seat], leadSuit, trump)
+                        > TrickResolver.strength(trick[winner], leadSuit, trump))) {
+                    winner = seat;
+                }
+            }
+            int[] teams = position.getTeams();
+            if (teams[winner] != teams[position.getSeat()]) {
+                int winning = TrickResolver.strength(trick[winner], leadSuit, trump);
+                int cheapest = -1;
+                for (long cards = legal; cards != 0; cards &= cards - 1) {
+                    int card = Cards.lowest(cards);
+                    int strength = TrickResolver.strength(card, leadSuit, trump);
+                    if (strength > winning && (cheapest < 0
+                            || strength < TrickResolver.strength(cheapest, leadSuit, trump))) {
+                        cheapest = card;
+                    }
+                }
+                if (cheapest >= 0) {
+                    return cheapest;
+                }
+            }
+            return cheapest(legal, trump);
+        }
+
+        // The lowest-ranked card, keeping trumps back when there is anything else.
+        private int cheapest(long legal, int trump) {
+            long spare = trump >= 0 && (legal & ~Cards.suitMask(trump)) != 0 ? legal & ~Cards.suitMask(trump) : legal;
+            int best = -1;
+            for (long cards = spare; cards != 0; cards &= cards - 1) {
+                int card = Cards.lowest(cards);
+                if (best < 0 || Cards.rank(card) < Cards.rank(best)) {
+                    best = card;
+                }
+            }
+            return best;
+        }
+    };
+
+    // The server's own bot, tuned with the hokm.bot.* properties.
+    public static final BotPlayer.Strategy MONTE_CARLO = new BotPlayer.Strategy() {
+        @Override
+        public int chooseHokm(MonteCarloBot.Position position) {
+            return MonteCarloBot.chooseHokm(position).join();
+        }
+
+        @Override
+        public int chooseCard(MonteCarloBot.Position position) {
+            return MonteCarloBot.chooseCard(position).join();
+        }
+    };
+
+    // A finished game seen from team A, or from strategy A once forA has been applied.
+    public static class Result {
+        private final int winner;
+        private final int[] handsWon;
+        private final long tricks;
+        private final String failure;
+
+        private Result(int winner, int[] handsWon, long tricks, String failure) {
+            this.winner = winner;
+            this.handsWon = handsWon;
+            this.tricks = tricks;
+            this.failure = failure;
+        }
+
+        private Result forA(boolean swapped) {
+            return swapped ? new Result(1 - winner, new int[]{handsWon[1], handsWon[0]}, tricks, failure) : this;
+        }
+
+        public int getWinner() {
+            return winner;
+        }
+
+        public int getHandsWon(int team) {
+            return handsWon[team];
+        }
+    }
+
+    public static class Report {
+        private final List<String> failures = new ArrayList<>();
+        private long games;
+        private long gamesWon;
+        private long hands;
+        private long handsWon;
+        private long tricks;
+        private long elapsedNanos;
+        // MonteCarloBot's totals when it played, since it is the one strategy whose speed is worth watching.
+        private String bots;
+
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        // Share of games (or hands) strategy A won, with the bounds of its 95% Wilson score interval.
+        public double[] getGameWinRate() {
+            return wilson(gamesWon, games);
+        }
+
+        public double[] getHandWinRate() {
+            return wilson(handsWon, hands);
+        }
+
+        public double getGamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        private static double[] wilson(long wins, long total) {
+            if (total == 0) {
+                return new double[]{0, 0, 1};
+            }
+            double p = (double) wins / total;
+            double z2 = Z * Z / total;
+            double center = (p + z2 / 2) / (1 + z2);
+            double margin = Z * Math.sqrt(p * (1 - p) / total + z2 / (4 * total)) / (1 + z2);
+            return new double[]{p, center - margin, center + margin};
+        }
+
+        @Override
+        public String toString() {
+            double[] gameRate = getGameWinRate();
+            double[] handRate = getHandWinRate();
+            StringBuilder summary = new StringBuilder();
+            summary.append(String.format("played %d games, %d hands, %d tricks, %d failed, %.1f games/sec, "
+                            + "%.0f tricks/sec%n", games, hands, tricks, failures.size(), getGamesPerSecond(),
+                    elapsedNanos == 0 ? 0 : tricks * 1_000_000_000.0 / elapsedNanos));
+            summary.append(String.format("A won %d games: %.1f%% (95%% CI %.1f-%.1f%%)%n", gamesWon,
+                    gameRate[0] * 100, gameRate[1] * 100, gameRate[2] * 100));
+            summary.append(String.format("A won %d hands: %.1f%% (95%% CI %.1f-%.1f%%)", handsWon,
+                    handRate[0] * 100, handRate[1] * 100, handRate[2] * 100));
+            if (bots != null) {
+                summary.append("\n").append(bots);
+            }
+            failures.forEach(failure -> summary.append("\n  failed: ").append(failure));
+            return summary.toString();
+        }
+    }
+}
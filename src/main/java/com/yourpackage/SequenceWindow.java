@@ -0,0 +1,163 @@
+package com.yourpackage;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+// Puts sequence-numbered room messages back in order on the client. Messages ahead of the next expected sequence
+// wait in a fixed ring of WINDOW slots whose occupancy is one long, so accepting, dropping a repeat or releasing a
+// run of buffered messages never scans or allocates. Sequences run from 1 to 2^32 - 1 and then wrap back to 1. Not
+// thread-safe: one thread feeds it and also calls expireGap, so delivery never runs under a lock or on a timer.
+public class SequenceWindow<T> {
+    private static final Logger LOGGER = Logger.getLogger(SequenceWindow.class.getName());
+    public static final int WINDOW = 64;
+    private static final long MAX_SEQUENCE = 0xFFFFFFFFL;
+
+    private final Object[] pending = new Object[WINDOW];
+    // Unsequenced messages that arrived while earlier room messages were still buffered, each with the sequence it
+    // has to follow.
+    private final ArrayDeque<Held<T>> held = new ArrayDeque<>();
+    private final Consumer<T> deliver;
+    private final GapListener gapListener;
+    private final long gapTimeoutNanos;
+
+    private long next;
+    // Slot of the message with sequence next; bit i of occupied is set when the message i steps after next is
+    // waiting in pending[(head + i) % WINDOW].
+    private int head;
+    private long occupied;
+    private long gapSince;
+    private long duplicates;
+    private long skipped;
+
+    public SequenceWindow(Consumer<T> deliver, GapListener gapListener, long gapTimeoutMs) {
+        this.deliver = deliver;
+        this.gapListener = gapListener;
+        this.gapTimeoutNanos = gapTimeoutMs * 1_000_000L;
+    }
+
+    public void accept(long sequence, T message) {
+        if (next == 0) {
+            next = sequence;
+        }
+        long distance = distance(next, sequence);
+        // More than half the sequence space ahead means it is really behind: a repeat of something already delivered.
+        if (distance > MAX_SEQUENCE / 2 || (distance < WINDOW && (occupied & (1L << distance)) != 0)) {
+            duplicates++;
+            return;
+        }
+        if (distance >= WINDOW) {
+            skipTo(advance(next, distance - WINDOW + 1));
+            distance = WINDOW - 1;
+        }
+        pending[slot(distance)] = message;
+        occupied |= 1L << distance;
+        release();
+    }
+
+    // Messages sent to this client alone carry no sequence. One that overtakes buffered room messages is held until
+    // they have been delivered, so it is never handled ahead of anything the server sent before it.
+    public void acceptUnsequenced(T message) {
+        if (occupied == 0) {
+            deliver.accept(message);
+        } else {
+            int last = 63 - Long.numberOfLeadingZeros(occupied);
+            held.add(new Held<>(advance(next, last), message));
+        }
+    }
+
+    // A hole that outlives the timeout is given up on, so one lost frame cannot hold back the rest forever. Has to be
+    // called periodically, since the frame that would end the wait may never come.
+    public void expireGap() {
+        if (occupied != 0 && gapSince != 0 && System.nanoTime() - gapSince > gapTimeoutNanos) {
+            skipTo(advance(next, Long.numberOfTrailingZeros(occupied)));
+            release();
+        }
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    private void release() {
+        while ((occupied & 1L) != 0) {
+            deliverNext();
+            occupied >>>= 1;
+        }
+        gapSince = occupied == 0 ? 0 : (gapSince == 0 ? System.nanoTime() : gapSince);
+    }
+
+    // Delivers whatever is buffered below target in order, and reports each missing stretch as a gap.
+    private void skipTo(long target) {
+        long from = next;
+        while (next != target && occupied != 0) {
+            if ((occupied & 1L) != 0) {
+                reportGap(from, next);
+                deliverNext();
+                from = next;
+            } else {
+                next = advance(next, 1);
+                head = (head + 1) % WINDOW;
+            }
+            occupied >>>= 1;
+        }
+        head = (int) ((head + distance(next, target)) % WINDOW);
+        next = target;
+        reportGap(from, next);
+        gapSince = 0;
+    }
+
+    // Hands over the message in the head slot and moves next and head past it.
+    @SuppressWarnings("unchecked")
+    private void deliverNext() {
+        T message = (T) pending[head];
+        pending[head] = null;
+        long delivered = next;
+        next = advance(next, 1);
+        head = (head + 1) % WINDOW;
+        deliver.accept(message);
+        while (!held.isEmpty() && held.peek().after == delivered) {
+            deliver.accept(held.poll().message);
+        }
+    }
+
+    private int slot(long distance) {
+        return (int) ((head + distance) % WINDOW);
+    }
+
+    private void reportGap(long from, long to) {
+        long missing = distance(from, to);
+        if (missing > 0) {
+            skipped += missing;
+            LOGGER.warning("Missed room messages " + from + " to " + advance(to, MAX_SEQUENCE - 1));
+            gapListener.onGap(from, to);
+        }
+    }
+
+    // Steps from one sequence to another, going forward through the wrap; 0 is never used, so it is not counted.
+    static long distance(long from, long to) {
+        return Math.floorMod(to - from, MAX_SEQUENCE);
+    }
+
+    static long advance(long sequence, long by) {
+        return Math.floorMod(sequence - 1 + by, MAX_SEQUENCE) + 1;
+    }
+
+    public interface GapListener {
+        void onGap(long fromInclusive, long toExclusive);
+    }
+
+    private static final class Held<T> {
+        private final long after;
+        private final T message;
+
+        private Held(long after, T message) {
+            this.after = after;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.yourpackage;
+
+import java.util.Arrays;
+
+// Times DoubleDummySolver on whole deals: each deal is regenerated from a seed exactly as a room would deal it, the
+// master leads, and the hokm cycles through the suits. Pass fewer cards per hand to time endings instead. Run it after
+// touching the solver to see both the typical and the worst deal, since a bad move order shows up in the tail first.
+public class SolverBenchmark {
+    public static void main(String[] args) {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int cards = args.length > 1 ? Integer.parseInt(args[1]) : Cards.SUIT_SIZE;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        if (deals <= 0 || cards <= 0 || cards > Cards.SUIT_SIZE) {
+            System.err.println("Usage: SolverBenchmark [deals] [cards per hand, 1-" + Cards.SUIT_SIZE + "] [seed]");
+            System.exit(1);
+        }
+        System.out.println(run(deals, cards, seed));
+    }
+
+    public static Report run(int deals, int cards, long seed) {
+        int seats = 4;
+        int[] teams = {0, 1, 0, 1};
+        int[] emptyTrick = {-1, -1, -1, -1};
+        int[] noTricks = {0, 0};
+        DoubleDummySolver solver = new DoubleDummySolver();
+        Report report = new Report(deals, cards);
+        for (int i = 0; i < deals; i++) {
+            Deal deal = Deal.generate(seed, i, seats);
+            long[] hands = deal.hands(seats);
+            for (int seat = 0; seat < seats; seat++) {
+                // Keep each hand's lowest cards, which leaves the most even endings.
+                while (Cards.count(hands[seat]) > cards) {
+                    hands[seat] &= ~Cards.mask(Cards.highest(hands[seat]));
+                }
+            }
+            long start = System.nanoTime();
+            DoubleDummySolver.Result result = solver.solve(hands, teams, i % 4, deal.getMasterSeat(), emptyTrick, noTricks);
+            report.nanos[i] = System.nanoTime() - start;
+            report.nodes += result.getNodes();
+        }
+        return report;
+    }
+
+    public static class Report {
+        private final int cards;
+        private final long[] nanos;
+        private long nodes;
+
+        private Report(int deals, int cards) {
+            this.cards = cards;
+            this.nanos = new long[deals];
+        }
+
+        public double getAverageMillis() {
+            return Arrays.stream(nanos).average().orElse(0) / 1e6;
+        }
+
+        public double getMedianMillis() {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2] / 1e6;
+        }
+
+        public double getMaxMillis() {
+            return Arrays.stream(nanos).max().orElse(0) / 1e6;
+        }
+
+        public double getNodesPerSecond() {
+            long total = Arrays.stream(nanos).sum();
+            return total == 0 ? 0 : nodes * 1_000_000_000.0 / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("solved %d deals of %d cards a hand: avg %.1fms, median %.1fms, max %.1fms, "
+                            + "%d nodes a deal, %.0f nodes/sec", nanos.length, cards, getAverageMillis(),
+                    getMedianMillis(), getMaxMillis(), nodes / nanos.length, getNodesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.yourpackage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Streams one room's broadcasts to its spectators. The room hands over each flushed batch of public frames once,
+// whatever the audience, and the fan-out runs here on a shared relay pool. The relay keeps the latest checkpoint the
+// room published (its public state as direct frames) and every broadcast since, so a late joiner gets the checkpoint,
+// then the tail, then the live stream, with no gap. Private messages such as hands and hokm prompts never reach it.
+public class SpectatorRelay {
+    private static final int RELAYS = Integer.getInteger("hokm.spectator.relays", 2);
+    private static final AtomicInteger RELAY_COUNT = new AtomicInteger();
+    private static final ExecutorService RELAY_POOL = Executors.newFixedThreadPool(RELAYS, runnable -> {
+        Thread thread = new Thread(runnable, "spectator-relay-" + RELAY_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Object CLOSE = new Object();
+
+    // Batches, checkpoints and the close marker from the room, in the order it produced them.
+    private final Queue<Object> inbox = new ConcurrentLinkedQueue<>();
+    private final Queue<ClientTransport> joining = new ConcurrentLinkedQueue<>();
+    private final Queue<ClientTransport> leaving = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicInteger spectatorCount = new AtomicInteger();
+
+    // Only the relay thread touches these. Every spectator has been sent the tail up to the shared cursor.
+    private final List<ClientTransport> spectators = new ArrayList<>();
+    private List<Frame> checkpoint;
+    private final List<Frame> tail = new ArrayList<>();
+    private int cursor;
+    private boolean closed;
+
+    public SpectatorRelay(List<Frame> checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public void subscribe(ClientTransport transport) {
+        spectatorCount.incrementAndGet();
+        joining.add(transport);
+        schedule();
+    }
+
+    public void unsubscribe(ClientTransport transport) {
+        leaving.add(transport);
+        schedule();
+    }
+
+    public int getSpectatorCount() {
+        return spectatorCount.get();
+    }
+
+    // Called by the room actor; the relay keeps the list.
+    void publish(List<Frame> frames) {
+        inbox.add(frames);
+        schedule();
+    }
+
+    // The room's public state as of the last frame published. Everything before it can be forgotten.
+    void checkpoint(List<Frame> state) {
+        inbox.add(new Checkpoint(state));
+        schedule();
+    }
+
+    // Spectators get whatever is still queued, then their connections are closed.
+    void close() {
+        inbox.add(CLOSE);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            RELAY_POOL.execute(this::drain);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        Object item;
+        while ((item = inbox.poll()) != null) {
+            if (item instanceof Checkpoint state) {
+                fanOut();
+                checkpoint = state.frames;
+                tail.clear();
+                cursor = 0;
+            } else if (item == CLOSE) {
+                closed = true;
+            } else {
+                tail.addAll((List<Frame>) item);
+            }
+        }
+
+        ClientTransport transport;
+        while ((transport = leaving.poll()) != null) {
+            if (spectators.remove(transport)) {
+                spectatorCount.decrementAndGet();
+            }
+        }
+        while ((transport = joining.poll()) != null) {
+            List<Frame> catchUp = new ArrayList<>(checkpoint.size() + cursor);
+            catchUp.addAll(checkpoint);
+            catchUp.addAll(tail.subList(0, cursor));
+            if (transport.send(catchUp)) {
+                spectators.add(transport);
+            } else {
+                spectatorCount.decrementAndGet();
+            }
+        }
+        fanOut();
+
+        if (closed) {
+            spectators.forEach(ClientTransport::closeWhenDrained);
+            spectatorCount.addAndGet(-spectators.size());
+            spectators.clear();
+        }
+
+        scheduled.set(false);
+        if ((!inbox.isEmpty() || !joining.isEmpty() || !leaving.isEmpty()) && scheduled.compareAndSet(false, true)) {
+            RELAY_POOL.execute(this::drain);
+        }
+    }
+
+    // Sends the tail past the shared cursor to everyone. The frames are encoded once and shared by all transports.
+    private void fanOut() {
+        if (cursor == tail.size()) {
+            return;
+        }
+        List<Frame> frames = List.copyOf(tail.subList(cursor, tail.size()));
+        cursor = tail.size();
+        int dropped = 0;
+        for (int i = spectators.size() - 1; i >= 0; i--) {
+            if (!spectators.get(i).send(frames)) {
+                spectators.remove(i);
+                dropped++;
+            }
+        }
+        spectatorCount.addAndGet(-dropped);
+    }
+
+    private static class Checkpoint {
+        private final List<Frame> frames;
+
+        private Checkpoint(List<Frame> frames) {
+            this.frames = frames;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.yourpackage;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// The cards of the trick in progress, indexed by seat, with the seat that led. The winner is found in one pass in
+// play order: each card gets a key of (trump, follows the lead, rank) and the highest key takes the trick, so a
+// card that neither follows nor trumps can never win. Reused across tricks; nothing here allocates.
+public final class TrickResolver implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int NO_CARD = -1;
+
+    private final int[] cards;
+    private int leadSeat = -1;
+    private int played;
+
+    public TrickResolver(int seats) {
+        this.cards = new int[seats];
+        reset();
+    }
+
+    public void reset() {
+        Arrays.fill(cards, NO_CARD);
+        leadSeat = -1;
+        played = 0;
+    }
+
+    // The first card played decides the lead seat and suit.
+    public void play(int seat, int card) {
+        if (cards[seat] != NO_CARD) {
+            throw new IllegalStateException("Seat " + seat + " already played this trick");
+        }
+        if (played == 0) {
+            leadSeat = seat;
+        }
+        cards[seat] = card;
+        played++;
+    }
+
+    public boolean isEmpty() {
+        return played == 0;
+    }
+
+    public boolean isComplete() {
+        return played == cards.length;
+    }
+
+    public int getLeadSeat() {
+        return leadSeat;
+    }
+
+    // -1 before anyone has played.
+    public int getLeadSuit() {
+        return leadSeat < 0 ? -1 : Cards.suit(cards[leadSeat]);
+    }
+
+    public int getCard(int seat) {
+        return cards[seat];
+    }
+
+    // Orders the cards of one trick: any trump beats any card of the led suit, which beats anything else, and rank
+    // breaks ties within a suit. Cards that neither follow nor trump all lose, so their order does not matter.
+    static int strength(int card, int leadSuit, int trumpSuit) {
+        int suit = Cards.suit(card);
+        return (suit == trumpSuit ? 32 : 0) | (suit == leadSuit ? 16 : 0) | Cards.rank(card);
+    }
+
+    // trumpSuit may be -1 when no hokm has been chosen. Returns -1 for an empty trick.
+    public int winningSeat(int trumpSuit) {
+        if (leadSeat < 0) {
+            return -1;
+        }
+        int leadSuit = Cards.suit(cards[leadSeat]);
+        int winner = leadSeat;
+        int bestKey = -1;
+        for (int i = 0, seat = leadSeat; i < cards.length; i++, seat = seat + 1 == cards.length ? 0 : seat + 1) {
+            int card = cards[seat];
+            if (card == NO_CARD) {
+                continue;
+            }
+            int key = strength(card, leadSuit, trumpSuit);
+            if (key > bestKey) {
+                bestKey = key;
+                winner = seat;
+            }
+        }
+        return winner;
+    }
+}
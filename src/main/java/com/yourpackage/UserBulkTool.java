@@ -0,0 +1,273 @@
+package com.yourpackage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
+
+public class UserBulkTool {
+    private static final Logger LOGGER = Logger.getLogger(UserBulkTool.class.getName());
+    private static final long CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final int CHUNKS_PER_TASK = 4;
+
+    private final UserStore store;
+
+    public UserBulkTool(UserStore store) {
+        this.store = store;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.err.println("Usage: UserBulkTool import|export <file>");
+            System.exit(1);
+        }
+        UserBulkTool tool = new UserBulkTool(UserStore.getInstance());
+        Report report = args[0].equals("import")
+                ? tool.importFile(Paths.get(args[1]))
+                : tool.exportFile(Paths.get(args[1]));
+        System.out.println(report);
+    }
+
+    public Report importFile(Path input) throws IOException {
+        long start = System.nanoTime();
+        List<Chunk> chunks = splitIntoChunks(input);
+        List<ParsedChunk> parsed = ForkJoinPool.commonPool().invoke(new ParseTask(chunks, 0, chunks.size()));
+
+        // Merging walks the chunks in file order, so the first row for a name wins no matter which worker parsed it.
+        Report report = new Report("import");
+        Map<String, String> accepted = new LinkedHashMap<>();
+        for (ParsedChunk chunk : parsed) {
+            report.lines += chunk.lines;
+            report.malformed.addAll(chunk.malformed);
+            for (int i = 0; i < chunk.usernames.size(); i++) {
+                String username = chunk.usernames.get(i);
+                String password = chunk.passwords.get(i);
+                String previous = accepted.putIfAbsent(username, password);
+                if (previous == null) {
+                    continue;
+                }
+                if (Objects.equals(previous, password)) {
+                    report.duplicates++;
+                } else {
+                    report.conflicts.add(username + " (conflicting rows in input)");
+                }
+            }
+        }
+
+        List<String> taken = store.registerAll(accepted).join();
+        for (String username : taken) {
+            report.conflicts.add(username + " (already registered)");
+        }
+        report.written = accepted.size() - taken.size();
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    public Report exportFile(Path output) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report("export");
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : store.snapshot().entrySet()) {
+                writer.write(entry.getKey() + "," + entry.getValue() + "\n");
+                report.lines++;
+            }
+        }
+        report.written = report.lines;
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Chunk boundaries are moved forward to the next newline so that no record is split between two workers.
+    private static List<Chunk> splitIntoChunks(Path input) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            while (start < size) {
+                long end = Math.min(start + CHUNK_SIZE, size);
+                while (end < size) {
+                    probe.clear();
+                    int read = channel.read(probe, end);
+                    int newline = -1;
+                    for (int i = 0; i < read; i++) {
+                        if (probe.get(i) == '\n') {
+                            newline = i;
+                            break;
+                        }
+                    }
+                    if (newline >= 0) {
+                        end += newline + 1;
+                        break;
+                    }
+                    end += read;
+                }
+                end = Math.min(end, size);
+                chunks.add(new Chunk(input, start, end - start));
+                start = end;
+            }
+        }
+        LOGGER.info("Split " + input + " into " + chunks.size() + " chunks");
+        return chunks;
+    }
+
+    private static ParsedChunk parse(Chunk chunk) {
+        ParsedChunk parsed = new ParsedChunk();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(chunk.path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset, chunk.length);
+        } catch (IOException e) {
+            parsed.malformed.add("chunk at " + chunk.offset + ": " + e.getMessage());
+            return parsed;
+        }
+        byte[] line = new byte[256];
+        int length = 0;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                parseLine(parsed, new String(line, 0, length, StandardCharsets.UTF_8));
+                length = 0;
+            } else {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+        if (length > 0) {
+            parseLine(parsed, new String(line, 0, length, StandardCharsets.UTF_8));
+        }
+        return parsed;
+    }
+
+    private static void parseLine(ParsedChunk parsed, String line) {
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        if (line.isEmpty()) {
+            return;
+        }
+        parsed.lines++;
+        int comma = line.indexOf(',');
+        if (comma <= 0 || comma == line.length() - 1) {
+            parsed.malformed.add(line);
+            return;
+        }
+        String username = line.substring(0, comma);
+        if (!username.equals(username.strip())) {
+            parsed.malformed.add(line);
+            return;
+        }
+        parsed.usernames.add(username);
+        parsed.passwords.add(line.substring(comma + 1));
+    }
+
+    @SuppressWarnings("serial")
+    private static class ParseTask extends RecursiveTask<List<ParsedChunk>> {
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+
+        private ParseTask(List<Chunk> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ParsedChunk> compute() {
+            if (to - from <= CHUNKS_PER_TASK) {
+                List<ParsedChunk> results = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    results.add(parse(chunks.get(i)));
+                }
+                return results;
+            }
+            int middle = (from + to) >>> 1;
+            ParseTask left = new ParseTask(chunks, from, middle);
+            left.fork();
+            List<ParsedChunk> right = new ParseTask(chunks, middle, to).compute();
+            List<ParsedChunk> results = new ArrayList<>(left.join());
+            results.addAll(right);
+            return results;
+        }
+    }
+
+    private static class Chunk {
+        private final Path path;
+        private final long offset;
+        private final long length;
+
+        private Chunk(Path path, long offset, long length) {
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static class ParsedChunk {
+        private final List<String> usernames = new ArrayList<>();
+        private final List<String> passwords = new ArrayList<>();
+        private final List<String> malformed = new ArrayList<>();
+        private long lines;
+    }
+
+    public static class Report {
+        private final String operation;
+        private final List<String> malformed = new ArrayList<>();
+        private final List<String> conflicts = new ArrayList<>();
+        private long lines;
+        private long duplicates;
+        private long written;
+        private long elapsedNanos;
+
+        private Report(String operation) {
+            this.operation = operation;
+        }
+
+        public List<String> getMalformed() {
+            return malformed;
+        }
+
+        public List<String> getConflicts() {
+            return conflicts;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public double getLinesPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder();
+            summary.append(operation).append(": ").append(lines).append(" lines, ")
+                    .append(written).append(" written, ")
+                    .append(duplicates).append(" duplicates, ")
+                    .append(conflicts.size()).append(" conflicts, ")
+                    .append(malformed.size()).append(" malformed, ")
+                    .append(String.format("%.0f lines/sec", getLinesPerSecond()));
+            conflicts.forEach(conflict -> summary.append("\n  conflict: ").append(conflict));
+            malformed.forEach(line -> summary.append("\n  malformed: ").append(line));
+            return summary.toString();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.yourpackage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class UserStore {
+    private static final Logger LOGGER = Logger.getLogger(UserStore.class.getName());
+    private static final String USERS_FILE = "users.txt";
+    private static final int MAX_BATCH = 256;
+    // First line of a file written as a log. A users.txt without it predates the log and may have been edited by hand.
+    private static final byte[] HEADER = "#users v2\n".getBytes(StandardCharsets.UTF_8);
+
+    private static UserStore instance;
+
+    private final Path path;
+    private final ConcurrentHashMap<String, String> passwords = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+    private final FileChannel log;
+
+    public static synchronized UserStore getInstance() {
+        if (instance == null) {
+            instance = new UserStore(Paths.get(USERS_FILE));
+        }
+        return instance;
+    }
+
+    public UserStore(Path path) {
+        this.path = path;
+        try {
+            long end = recover();
+            this.log = FileChannel.open(path, StandardOpenOption.WRITE);
+            if (log.size() > end) {
+                LOGGER.warning("Truncating torn user record at offset " + end);
+                log.truncate(end);
+            }
+            log.position(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open user log " + path, e);
+        }
+        Thread committer = new Thread(this::commitLoop, "user-store-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public boolean contains(String username) {
+        return passwords.containsKey(username);
+    }
+
+    public String getPassword(String username) {
+        return passwords.get(username);
+    }
+
+    public int size() {
+        return passwords.size();
+    }
+
+    public CompletableFuture<Void> append(String username, String password) {
+        passwords.put(username, password);
+        return enqueue(username, password);
+    }
+
+    public CompletableFuture<Boolean> replace(String username, String expected, String updated) {
+        if (!passwords.replace(username, expected, updated)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return enqueue(username, updated).thenApply(ignored -> true);
+    }
+
+    // The index claims the name with a CAS before anything touches the disk, so concurrent signups for the same
+    // name cannot both win, while signups for different names only meet in the shared group commit.
+    public CompletableFuture<Boolean> register(String username, String password) {
+        if (passwords.putIfAbsent(username, password) != null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return enqueue(username, password).handle((ignored, error) -> {
+            if (error != null) {
+                passwords.remove(username, password);
+                throw new CompletionException(error);
+            }
+            return true;
+        });
+    }
+
+    // Bulk form of register: every name that is still free goes to disk as one record block in a single commit.
+    // The returned list holds the names that were already taken.
+    public CompletableFuture<List<String>> registerAll(Map<String, String> users) {
+        List<String> taken = new ArrayList<>();
+        Map<String, String> claimed = new LinkedHashMap<>();
+        StringBuilder records = new StringBuilder();
+        users.forEach((username, password) -> {
+            if (passwords.putIfAbsent(username, password) != null) {
+                taken.add(username);
+            } else {
+                claimed.put(username, password);
+                records.append(username).append(',').append(password).append('\n');
+            }
+        });
+        if (claimed.isEmpty()) {
+            return CompletableFuture.completedFuture(taken);
+        }
+        PendingWrite write = new PendingWrite(records.toString());
+        pendingWrites.add(write);
+        return write.done.handle((ignored, error) -> {
+            if (error != null) {
+                claimed.forEach(passwords::remove);
+                throw new CompletionException(error);
+            }
+            return taken;
+        });
+    }
+
+    public Map<String, String> snapshot() {
+        return new HashMap<>(passwords);
+    }
+
+    private CompletableFuture<Void> enqueue(String username, String password) {
+        PendingWrite write = new PendingWrite(username + "," + password + "\n");
+        pendingWrites.add(write);
+        return write.done;
+    }
+
+    // Replays the file into the index and returns the offset the next record goes to. In the log format a trailing line
+    // without a newline is a write that was torn by a crash, so it is left to be cut off. A legacy file has no such
+    // writes, only perhaps a last line saved without a newline, so that line still counts; the file is then moved to
+    // the log format so torn writes can be told apart from here on.
+    private long recover() throws IOException {
+        byte[] data = Files.exists(path) ? Files.readAllBytes(path) : new byte[0];
+        boolean logFormat = data.length >= HEADER.length
+                && Arrays.equals(data, 0, HEADER.length, HEADER, 0, HEADER.length);
+        int lineStart = logFormat ? HEADER.length : 0;
+        int loaded = 0;
+        for (int i = lineStart; i < data.length; i++) {
+            if (data[i] == '\n') {
+                loaded += load(new String(data, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                lineStart = i + 1;
+            }
+        }
+        if (!logFormat) {
+            boolean unterminated = lineStart < data.length;
+            if (unterminated) {
+                loaded += load(new String(data, lineStart, data.length - lineStart, StandardCharsets.UTF_8));
+            }
+            data = migrate(data, unterminated);
+            lineStart = data.length;
+        }
+        LOGGER.info("Loaded " + loaded + " user records from " + path);
+        return lineStart;
+    }
+
+    private int load(String line) {
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        int comma = line.indexOf(',');
+        if (comma > 0) {
+            passwords.put(line.substring(0, comma), line.substring(comma + 1));
+            return 1;
+        }
+        if (!line.isEmpty()) {
+            LOGGER.warning("Skipping malformed user record: " + line);
+        }
+        return 0;
+    }
+
+    // Puts the header in front of a legacy file, keeping its lines as they were. The new file is written beside the
+    // old one and moved over it, so a crash leaves one or the other.
+    private byte[] migrate(byte[] legacy, boolean unterminated) throws IOException {
+        byte[] data = Arrays.copyOf(HEADER, HEADER.length + legacy.length + (unterminated ? 1 : 0));
+        System.arraycopy(legacy, 0, data, HEADER.length, legacy.length);
+        if (unterminated) {
+            data[data.length - 1] = '\n';
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (legacy.length > 0) {
+            LOGGER.info("Moved legacy user file " + path + " to the log format");
+        }
+        return data;
+    }
+
+    // Group commit: everything that queued up while the previous fsync was running goes out in one write and one force.
+    private void commitLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(pendingWrites.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingWrites.drainTo(batch, MAX_BATCH - 1);
+
+            StringBuilder records = new StringBuilder();
+            for (PendingWrite write : batch) {
+                records.append(write.record);
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    log.write(buffer);
+                }
+                log.force(false);
+                batch.forEach(write -> write.done.complete(null));
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error committing user records", e);
+                batch.forEach(write -> write.done.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private static class PendingWrite {
+        private final String record;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingWrite(String record) {
+            this.record = record;
+        }
+    }
+}
@@ -1,67 +1,134 @@
 package com.yourpackage;
 
-import java.io.*;
-import java.util.Objects;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class Users
 {
-    public String registerUser(String username, String password)
+    private static final Logger LOGGER = Logger.getLogger(Users.class.getName());
+    private static final ExecutorService AUTH_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "auth-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path file;
+    private UserStore store;
+    private PasswordHasher hasher;
+
+    public Users()
+    {
+        this.file = null;
+    }
+
+    // Opens the given users file, lazily like users.txt, instead of the shared store.
+    Users(Path file, PasswordHasher hasher)
     {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("users.txt", true)))
+        this.file = file;
+        this.hasher = hasher;
+    }
+
+    public Users(UserStore store, PasswordHasher hasher)
+    {
+        this.file = null;
+        this.store = store;
+        this.hasher = hasher;
+    }
+
+    // Opening the store replays users.txt, so it is resolved on the auth executor rather than by the caller.
+    private synchronized UserStore store()
+    {
+        if (store == null)
         {
-            if (Objects.equals(isUsernameTaken(username), "Yes"))
-            {
-                return "This username is taken!";
-            }
-            writer.write(username + "," + password + "\n");
-            return "Registration successful";
+            store = file == null ? UserStore.getInstance() : new UserStore(file);
         }
-        catch (IOException e)
+        return store;
+    }
+
+    private synchronized PasswordHasher hasher()
+    {
+        if (hasher == null)
         {
-            return "An error occurred.";
+            hasher = PasswordHasher.getInstance();
         }
+        return hasher;
+    }
+
+    public CompletableFuture<Void> warmUp()
+    {
+        return CompletableFuture.runAsync(this::store, AUTH_EXECUTOR);
+    }
+
+    public String registerUser(String username, String password)
+    {
+        return registerUserAsync(username, password).join();
+    }
+
+    public CompletableFuture<String> registerUserAsync(String username, String password)
+    {
+        return CompletableFuture.supplyAsync(() -> store().contains(username), AUTH_EXECUTOR)
+                .thenCompose(taken -> {
+                    if (taken)
+                    {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    return hasher().hash(password).thenCompose(hash -> store().register(username, hash));
+                })
+                .thenApply(registered -> registered ? "Registration successful" : "This username is taken!")
+                .exceptionally(e -> {
+                    LOGGER.log(Level.WARNING, "Registration failed for " + username, e);
+                    return "An error occurred.";
+                });
     }
 
     public String isUsernameTaken(String username)
     {
-        try (BufferedReader reader = new BufferedReader(new FileReader("users.txt")))
-        {
-            String line;
-            while ((line = reader.readLine()) != null)
-            {
-                String[] parts = line.split(",");
-                if (parts[0].equals(username))
-                {
-                    return "Yes";
-                }
-            }
-        }
-        catch (IOException e)
-        {
-            return "An error occurred.";
-        }
-        return "No";
+        return store().contains(username) ? "Yes" : "No";
     }
 
     public String loginUser(String username , String password)
     {
-        try(BufferedReader reader = new BufferedReader(new FileReader("users.txt")))
-        {
-            String line;
-            while ((line = reader.readLine()) != null)
-            {
-                String[] parts = line.split(",");
-                if (Objects.equals(parts[0], username) && Objects.equals(parts[1], password))
-                {
-                    return "Login successful.";
-                }
-            }
-        }
-        catch (IOException e)
-        {
+        return loginUserAsync(username, password).join();
+    }
 
-            return "An error occurred.";
-        }
-        return "username or password is incorrect!";
+    public CompletableFuture<String> loginUserAsync(String username, String password)
+    {
+        return CompletableFuture.supplyAsync(() -> store().getPassword(username), AUTH_EXECUTOR)
+                .thenCompose(stored -> {
+                    if (stored == null)
+                    {
+                        return CompletableFuture.completedFuture("username or password is incorrect!");
+                    }
+                    return hasher().verify(password, stored).thenApply(ok -> {
+                        if (!ok)
+                        {
+                            return "username or password is incorrect!";
+                        }
+                        if (hasher().needsRehash(stored))
+                        {
+                            rehash(username, password, stored);
+                        }
+                        return "Login successful.";
+                    });
+                })
+                .exceptionally(e -> {
+                    LOGGER.log(Level.WARNING, "Login failed for " + username, e);
+                    return "An error occurred.";
+                });
+    }
+
+    // Plaintext rows and rows hashed with an older cost are upgraded in the background after a successful login.
+    private void rehash(String username, String password, String stored)
+    {
+        hasher().hash(password)
+                .thenCompose(hash -> store().replace(username, stored, hash))
+                .exceptionally(e -> {
+                    LOGGER.log(Level.WARNING, "Could not migrate password for " + username, e);
+                    return false;
+                });
     }
 }
@@ -0,0 +1,90 @@
+package com.yourpackage;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AllocationTest {
+    private static final int WARMUP = 200_000;
+    private static final int ROUNDS = 1_000_000;
+    // Far below one object per round, so anything allocated per deal or per trick fails; the slack is for the
+    // allocation counter itself.
+    private static final long SLACK_BYTES = 1024;
+    private static final int SEATS = 4;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "no per-thread allocation counter");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "per-thread allocation counter unsupported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // Reshuffling a deck and dealing it out as hand masks, as Room does for every hand.
+    @Test
+    void dealingAllocatesNothing() {
+        SplittableRandom random = new SplittableRandom(16);
+        Deck deck = new Deck(random);
+        long[] hands = new long[SEATS];
+        deal(deck, random, hands, WARMUP);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long checksum = deal(deck, random, hands, ROUNDS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertNotEquals(0, checksum);
+        assertTrue(allocated < SLACK_BYTES, "dealing " + ROUNDS + " hands allocated " + allocated + " bytes");
+    }
+
+    // Resolving tricks with one reused TrickResolver, trump or no trump.
+    @Test
+    void trickEvaluationAllocatesNothing() {
+        SplittableRandom random = new SplittableRandom(16);
+        TrickResolver trick = new TrickResolver(SEATS);
+        int[] cards = new int[Cards.DECK_SIZE];
+        Deck.shuffle(cards, random);
+        resolve(trick, cards, WARMUP);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long checksum = resolve(trick, cards, ROUNDS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertNotEquals(0, checksum);
+        assertTrue(allocated < SLACK_BYTES, "resolving " + ROUNDS + " tricks allocated " + allocated + " bytes");
+    }
+
+    private static long deal(Deck deck, SplittableRandom random, long[] hands, int rounds) {
+        long checksum = 0;
+        for (int i = 0; i < rounds; i++) {
+            deck.shuffle(random);
+            hands[0] = deck.deal(Deal.INITIAL_CARDS);
+            for (int seat = 1; seat < SEATS; seat++) {
+                hands[seat] = deck.deal(Cards.SUIT_SIZE);
+            }
+            hands[0] |= deck.deal(Cards.SUIT_SIZE - Deal.INITIAL_CARDS);
+            for (long hand : hands) {
+                checksum = checksum * 31 + hand;
+            }
+        }
+        return checksum;
+    }
+
+    // Walks the 13 tricks of a fixed shuffled deck over and over, each with a different leader and trump.
+    private static long resolve(TrickResolver trick, int[] cards, int rounds) {
+        long checksum = 0;
+        for (int i = 0; i < rounds; i++) {
+            int first = (i % Cards.SUIT_SIZE) * SEATS;
+            int leader = i % SEATS;
+            trick.reset();
+            for (int k = 0; k < SEATS; k++) {
+                trick.play((leader + k) % SEATS, cards[first + k]);
+            }
+            checksum = checksum * 31 + trick.winningSeat(i % (Cards.SUIT_COUNT + 1) - 1) + 1;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,186 @@
+package com.yourpackage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class DoubleDummySolverTest {
+    private static final long SEED = 20240611L;
+    private static final int POSITIONS = 3_000;
+    private static final int NO_CARD = -1;
+
+    // Random small endings, some of them mid-trick, with the tricks already won near seven so the hand can stop early,
+    // checked against plain minimax. One solver with a small table is reused throughout, so entries written for one
+    // position are read back, by rank and for the other team, in positions that only look alike.
+    @Test
+    void matchesPlainMinimaxOnSmallEndings() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        DoubleDummySolver solver = new DoubleDummySolver(10);
+        int checked = 0;
+        while (checked < POSITIONS) {
+            int seats = random.nextInt(4) == 0 ? 2 : 4;
+            int[] teams = seats == 4 ? new int[]{0, 1, 0, 1} : new int[]{0, 1};
+            int cards = 1 + random.nextInt(seats == 4 ? 4 : 6);
+            int[] won = {random.nextInt(Room.TRICKS_TO_WIN), random.nextInt(Room.TRICKS_TO_WIN)};
+            if (won[0] + won[1] + cards > Cards.SUIT_SIZE) {
+                continue;
+            }
+            int trump = random.nextInt(Cards.SUIT_COUNT + 1) - 1;
+            int leader = random.nextInt(seats);
+            long[] hands = deal(random, seats, cards);
+            int[] trick = new int[seats];
+            Arrays.fill(trick, NO_CARD);
+            int played = random.nextInt(seats);
+            for (int i = 0; i < played; i++) {
+                int seat = (leader + i) % seats;
+                long legal = legal(hands[seat], trick, leader, i);
+                int card = pick(random, legal);
+                hands[seat] &= ~Cards.mask(card);
+                trick[seat] = card;
+            }
+            Minimax reference = new Minimax(hands, teams, trump, leader, trick, played, won);
+            String position = "seats " + seats + ", hands " + Arrays.toString(hands) + ", trump " + trump + ", lead "
+                    + leader + ", trick " + Arrays.toString(trick) + ", won " + Arrays.toString(won);
+
+            DoubleDummySolver.Result result = solver.solve(hands, teams, trump, leader, trick, won);
+            for (int team = 0; team < 2; team++) {
+                assertEquals(won[team] + reference.value(team, NO_CARD), result.getTricks(team),
+                        "team " + team + " tricks, " + position);
+            }
+
+            int mover = teams[(leader + played) % seats];
+            long legal = reference.legalForMover();
+            int best = result.getBestCard();
+            assertTrue(Cards.contains(legal, best), "illegal best card " + best + ", " + position);
+            assertEquals(result.getTricks(mover) - won[mover], reference.value(mover, best),
+                    "best card " + best + " falls short, " + position);
+
+            int[] values = solver.analyze(hands, teams, trump, leader, trick, won);
+            for (int card = 0; card < Cards.DECK_SIZE; card++) {
+                int expected = Cards.contains(legal, card) ? reference.value(mover, card) : -1;
+                assertEquals(expected, values[card], "value of card " + card + ", " + position);
+            }
+            checked++;
+        }
+    }
+
+    private static long[] deal(SplittableRandom random, int seats, int cards) {
+        int[] deck = new int[Cards.DECK_SIZE];
+        for (int i = 0; i < deck.length; i++) {
+            deck[i] = i;
+        }
+        for (int i = deck.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = deck[i];
+            deck[i] = deck[j];
+            deck[j] = swap;
+        }
+        long[] hands = new long[seats];
+        for (int i = 0; i < seats * cards; i++) {
+            hands[i % seats] |= Cards.mask(deck[i]);
+        }
+        return hands;
+    }
+
+    private static long legal(long hand, int[] trick, int lead, int played) {
+        if (played == 0) {
+            return hand;
+        }
+        long following = Cards.inSuit(hand, Cards.suit(trick[lead]));
+        return following != 0 ? following : hand;
+    }
+
+    private static int pick(SplittableRandom random, long cards) {
+        for (int skip = random.nextInt(Cards.count(cards)); skip > 0; skip--) {
+            cards &= cards - 1;
+        }
+        return Cards.lowest(cards);
+    }
+
+    // Every legal card at every turn, until the hand runs out or a team reaches seven; nothing cached or pruned.
+    private static final class Minimax {
+        private final long[] hands;
+        private final int[] teams;
+        private final int trump;
+        private final int[] trick;
+        private final int[] won;
+        private final int seats;
+        private int lead;
+        private int played;
+        private int side;
+
+        private Minimax(long[] hands, int[] teams, int trump, int lead, int[] trick, int played, int[] won) {
+            this.hands = hands.clone();
+            this.teams = teams;
+            this.trump = trump;
+            this.trick = trick.clone();
+            this.won = won.clone();
+            this.seats = hands.length;
+            this.lead = lead;
+            this.played = played;
+        }
+
+        private long legalForMover() {
+            return legal(hands[(lead + played) % seats], trick, lead, played);
+        }
+
+        // The tricks side adds from here with best play on both sides, after card when one is given.
+        private int value(int side, int card) {
+            this.side = side;
+            return card == NO_CARD ? search() : play(card);
+        }
+
+        private int search() {
+            if (won[0] >= Room.TRICKS_TO_WIN || won[1] >= Room.TRICKS_TO_WIN) {
+                return 0;
+            }
+            int seat = (lead + played) % seats;
+            long legal = legal(hands[seat], trick, lead, played);
+            if (legal == 0) {
+                return 0;
+            }
+            boolean maximizing = teams[seat] == side;
+            int best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            for (; legal != 0; legal &= legal - 1) {
+                int value = play(Cards.lowest(legal));
+                best = maximizing ? Math.max(best, value) : Math.min(best, value);
+            }
+            return best;
+        }
+
+        private int play(int card) {
+            int seat = (lead + played) % seats;
+            hands[seat] &= ~Cards.mask(card);
+            trick[seat] = card;
+            played++;
+            int value;
+            if (played == seats) {
+                TrickResolver resolver = new TrickResolver(seats);
+                for (int i = 0; i < seats; i++) {
+                    resolver.play((lead + i) % seats, trick[(lead + i) % seats]);
+                }
+                int winner = resolver.winningSeat(trump);
+                int[] cards = trick.clone();
+                int trickLead = lead;
+                Arrays.fill(trick, NO_CARD);
+                played = 0;
+                lead = winner;
+                won[teams[winner]]++;
+                value = (teams[winner] == side ? 1 : 0) + search();
+                won[teams[winner]]--;
+                lead = trickLead;
+                played = seats;
+                System.arraycopy(cards, 0, trick, 0, seats);
+            } else {
+                value = search();
+            }
+            played--;
+            trick[seat] = NO_CARD;
+            hands[seat] |= Cards.mask(card);
+            return value;
+        }
+    }
+}
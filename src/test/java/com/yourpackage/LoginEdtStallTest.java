@@ -0,0 +1,83 @@
+package com.yourpackage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Component;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LoginEdtStallTest {
+    private static final int USERS = 500_000;
+    // Loading the file and checking a PBKDF2 hash each take well over this, so a stall under it means neither ran on
+    // the EDT; it still leaves room for a GC pause while the file loads on the auth worker.
+    private static final long MAX_STALL_MS = 100;
+    private static final long PROBE_INTERVAL_MS = 2;
+
+    @TempDir
+    Path dir;
+
+    // Logs in against a large users file that has not been opened yet, from the EDT as the Login button does, while
+    // probes posted with invokeLater time how long the EDT takes to get to them.
+    @Test
+    void loginNeverStallsTheEdt() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(120_000, 1, 8, 10_000);
+        Path file = dir.resolve("users.txt");
+        String hash = hasher.hash("secret").join();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("#users v2\n");
+            for (int i = 0; i < USERS; i++) {
+                out.write("user" + i + "," + hash + "\n");
+            }
+            out.write("target," + hash + "\n");
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        LoginSignUpPage page = new LoginSignUpPage(new Users(file, hasher)) {
+            @Override
+            void openRooms(Component frame, String username) {
+                result.complete(username);
+            }
+
+            @Override
+            void showErrorDialog(Component frame, String message) {
+                result.complete(message);
+            }
+
+            @Override
+            void showInfoDialog(Component frame, String message) {
+            }
+        };
+        JPanel frame = new JPanel();
+        SwingUtilities.invokeAndWait(() -> { });
+
+        long[] worstStall = {0};
+        int probes = 0;
+        SwingUtilities.invokeLater(() -> page.handleLogin("target", "secret", frame));
+        while (!result.isDone()) {
+            CountDownLatch ran = new CountDownLatch(1);
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                worstStall[0] = Math.max(worstStall[0], System.nanoTime() - posted);
+                ran.countDown();
+            });
+            assertTrue(ran.await(10, TimeUnit.SECONDS), "EDT stopped answering probes");
+            probes++;
+            Thread.sleep(PROBE_INTERVAL_MS);
+        }
+
+        assertEquals("target", result.get());
+        assertTrue(probes > 10, "login finished before the EDT could be sampled: " + probes + " probes");
+        long worstMs = TimeUnit.NANOSECONDS.toMillis(worstStall[0]);
+        assertTrue(worstMs < MAX_STALL_MS, "EDT stalled " + worstMs + "ms over " + probes + " probes");
+    }
+}
@@ -0,0 +1,74 @@
+package com.yourpackage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class MoveErrorTest {
+    private static final int FUZZ_CASES = 2_000_000;
+
+    // Spelled out card by card, without the suit masks check relies on.
+    private static MoveError reference(long hand, int card, int leadSuit) {
+        if ((hand >>> card & 1) == 0) {
+            return MoveError.CARD_NOT_IN_HAND;
+        }
+        if (leadSuit >= 0 && Cards.suit(card) != leadSuit) {
+            for (int rank = 0; rank < Cards.SUIT_SIZE; rank++) {
+                if ((hand >>> Cards.card(leadSuit, rank) & 1) != 0) {
+                    return MoveError.MUST_FOLLOW_SUIT;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Random hands of every size, including empty and full, against every lead including none. The seed is fixed so
+    // a failure can be replayed.
+    @Test
+    void fuzzedChecksMatchTheReference() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int i = 0; i < FUZZ_CASES; i++) {
+            long hand = random.nextLong() & random.nextLong() & Cards.FULL_DECK;
+            if (i % 97 == 0) {
+                hand = i % 2 == 0 ? 0 : Cards.FULL_DECK;
+            }
+            int card = random.nextInt(Cards.DECK_SIZE);
+            int leadSuit = random.nextInt(Cards.SUIT_COUNT + 1) - 1;
+            MoveError expected = reference(hand, card, leadSuit);
+            MoveError actual = MoveError.check(hand, card, leadSuit);
+            if (actual != expected) {
+                fail("hand " + Long.toHexString(hand) + " card " + card + " lead " + leadSuit
+                        + ": expected " + expected + ", got " + actual);
+            }
+        }
+    }
+
+    @Test
+    void followingIsOnlyRequiredWhileTheHandHoldsTheLedSuit() {
+        long hand = Cards.mask(Cards.card(0, 5)) | Cards.mask(Cards.card(2, 1));
+        assertNull(MoveError.check(hand, Cards.card(2, 1), -1));
+        assertNull(MoveError.check(hand, Cards.card(0, 5), 0));
+        assertEquals(MoveError.MUST_FOLLOW_SUIT, MoveError.check(hand, Cards.card(2, 1), 0));
+        assertNull(MoveError.check(hand, Cards.card(2, 1), 3));
+        assertEquals(MoveError.CARD_NOT_IN_HAND, MoveError.check(hand, Cards.card(0, 6), 0));
+        assertEquals(MoveError.CARD_NOT_IN_HAND, MoveError.check(0, Cards.card(1, 0), -1));
+    }
+
+    @Test
+    void codesRoundTrip() {
+        for (MoveError error : MoveError.values()) {
+            assertEquals(error, MoveError.fromCode(error.getCode()));
+            assertEquals(error, MoveError.find(error.getCode()));
+        }
+        assertNull(MoveError.find(0));
+        assertNull(MoveError.find(-1));
+        assertNull(MoveError.find(200));
+        assertThrows(IllegalArgumentException.class, () -> MoveError.fromCode(0));
+        assertThrows(IllegalArgumentException.class, () -> MoveError.fromCode(-1));
+        assertThrows(IllegalArgumentException.class, () -> MoveError.fromCode(200));
+    }
+}
@@ -0,0 +1,86 @@
+package com.yourpackage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SequenceWindowTest {
+    private final List<String> delivered = new ArrayList<>();
+    private final List<long[]> gaps = new ArrayList<>();
+
+    private SequenceWindow<String> window(long gapTimeoutMs) {
+        return new SequenceWindow<>(delivered::add, (from, to) -> gaps.add(new long[] {from, to}), gapTimeoutMs);
+    }
+
+    @Test
+    void reordersAcrossTheWrapSkippingZero() {
+        SequenceWindow<String> window = window(60_000);
+        window.accept(0xFFFFFFFEL, "fffffffe");
+        window.accept(1, "1");
+        window.accept(0xFFFFFFFFL, "ffffffff");
+        window.accept(2, "2");
+        assertEquals(List.of("fffffffe", "ffffffff", "1", "2"), delivered);
+        assertEquals(0, window.getDuplicates());
+        assertEquals(0, window.getSkipped());
+    }
+
+    @Test
+    void dropsRepeatsOnBothSidesOfTheWrap() {
+        SequenceWindow<String> window = window(60_000);
+        window.accept(0xFFFFFFFFL, "a");
+        window.accept(1, "b");
+        window.accept(0xFFFFFFFFL, "a again");
+        window.accept(3, "d");
+        window.accept(3, "d again");
+        window.accept(2, "c");
+        assertEquals(List.of("a", "b", "c", "d"), delivered);
+        assertEquals(2, window.getDuplicates());
+    }
+
+    @Test
+    void overflowSkipsTheOldestHoleAndReportsIt() {
+        SequenceWindow<String> window = window(60_000);
+        window.accept(0xFFFFFFF0L, "start");
+        for (long sequence = 0xFFFFFFF2L; sequence != 0x42; sequence = sequence == 0xFFFFFFFFL ? 1 : sequence + 1) {
+            window.accept(sequence, Long.toHexString(sequence));
+        }
+        assertEquals(1, gaps.size());
+        assertEquals(0xFFFFFFF1L, gaps.get(0)[0]);
+        assertEquals(0xFFFFFFF2L, gaps.get(0)[1]);
+        assertEquals(1, window.getSkipped());
+        assertEquals("41", delivered.get(delivered.size() - 1));
+        assertEquals(1 + 14 + 0x41, delivered.size());
+    }
+
+    @Test
+    void expireGapGivesUpOnAHoleWithoutNewFrames() throws InterruptedException {
+        SequenceWindow<String> window = window(10);
+        window.accept(0xFFFFFFFFL, "a");
+        window.accept(2, "c");
+        window.expireGap();
+        assertEquals(List.of("a"), delivered);
+        Thread.sleep(30);
+        window.expireGap();
+        assertEquals(List.of("a", "c"), delivered);
+        assertEquals(1, gaps.size());
+        assertEquals(1, gaps.get(0)[0]);
+        assertEquals(2, gaps.get(0)[1]);
+        window.accept(1, "b late");
+        window.accept(3, "d");
+        assertEquals(List.of("a", "c", "d"), delivered);
+    }
+
+    @Test
+    void unsequencedWaitsBehindBufferedMessages() {
+        SequenceWindow<String> window = window(60_000);
+        window.acceptUnsequenced("direct 1");
+        window.accept(5, "5");
+        window.accept(7, "7");
+        window.acceptUnsequenced("direct 2");
+        window.accept(8, "8");
+        window.accept(6, "6");
+        assertEquals(List.of("direct 1", "5", "6", "7", "direct 2", "8"), delivered);
+    }
+}
@@ -0,0 +1,104 @@
+package com.yourpackage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class TrickResolverTest {
+    private static final int SEATS = 4;
+
+    // The textbook rule, applied card by card in play order: a card takes the trick from the one winning so far
+    // if it is higher in the same suit, or a trump over a non-trump.
+    private static int referenceWinner(int[] played, int trumpSuit) {
+        int best = 0;
+        for (int i = 1; i < played.length; i++) {
+            int card = played[i];
+            int winning = played[best];
+            boolean takes = Cards.suit(card) == Cards.suit(winning)
+                    ? Cards.rank(card) > Cards.rank(winning)
+                    : Cards.suit(card) == trumpSuit;
+            if (takes) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // Every ordered 4-card trick, under each hokm and with none chosen, led from a seat that varies with the cards.
+    @Test
+    void everyTrickMatchesTheReference() {
+        TrickResolver trick = new TrickResolver(SEATS);
+        int[] played = new int[SEATS];
+        long checked = 0;
+        for (int trumpSuit = -1; trumpSuit < Cards.SUIT_COUNT; trumpSuit++) {
+            for (played[0] = 0; played[0] < Cards.DECK_SIZE; played[0]++) {
+                for (played[1] = 0; played[1] < Cards.DECK_SIZE; played[1]++) {
+                    if (played[1] == played[0]) {
+                        continue;
+                    }
+                    for (played[2] = 0; played[2] < Cards.DECK_SIZE; played[2]++) {
+                        if (played[2] == played[0] || played[2] == played[1]) {
+                            continue;
+                        }
+                        for (played[3] = 0; played[3] < Cards.DECK_SIZE; played[3]++) {
+                            if (played[3] == played[0] || played[3] == played[1] || played[3] == played[2]) {
+                                continue;
+                            }
+                            int leadSeat = (played[0] + played[3]) % SEATS;
+                            trick.reset();
+                            for (int i = 0; i < SEATS; i++) {
+                                trick.play((leadSeat + i) % SEATS, played[i]);
+                            }
+                            int expected = (leadSeat + referenceWinner(played, trumpSuit)) % SEATS;
+                            int actual = trick.winningSeat(trumpSuit);
+                            if (actual != expected) {
+                                fail(Arrays.toString(played) + " led from " + leadSeat + " with hokm " + trumpSuit
+                                        + ": expected seat " + expected + ", got " + actual);
+                            }
+                            checked++;
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(5L * 52 * 51 * 50 * 49, checked);
+    }
+
+    @Test
+    void offSuitCardNeverWinsWithoutTrump() {
+        TrickResolver trick = new TrickResolver(SEATS);
+        trick.play(2, Cards.card(0, 0));
+        trick.play(3, Cards.card(1, 12));
+        trick.play(0, Cards.card(2, 12));
+        trick.play(1, Cards.card(3, 12));
+        assertEquals(2, trick.winningSeat(-1));
+        assertEquals(0, trick.winningSeat(2));
+    }
+
+    @Test
+    void partialTrickIsResolvedFromWhatWasPlayed() {
+        TrickResolver trick = new TrickResolver(SEATS);
+        assertTrue(trick.isEmpty());
+        assertEquals(-1, trick.winningSeat(0));
+        assertEquals(-1, trick.getLeadSuit());
+        trick.play(3, Cards.card(1, 4));
+        trick.play(0, Cards.card(1, 9));
+        assertEquals(3, trick.getLeadSeat());
+        assertEquals(1, trick.getLeadSuit());
+        assertEquals(0, trick.winningSeat(-1));
+    }
+
+    @Test
+    void seatCannotPlayTwiceInOneTrick() {
+        TrickResolver trick = new TrickResolver(SEATS);
+        trick.play(1, Cards.card(0, 3));
+        assertThrows(IllegalStateException.class, () -> trick.play(1, Cards.card(0, 5)));
+        trick.reset();
+        trick.play(1, Cards.card(0, 5));
+        assertEquals(1, trick.getLeadSeat());
+    }
+}
@@ -0,0 +1,111 @@
+package com.yourpackage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UserStoreTest {
+    private static final int THREADS = 16;
+    private static final int NAMES = 2_000;
+    private static final int ATTEMPTS_PER_NAME = 10;
+
+    @TempDir
+    Path dir;
+
+    // Every thread signs up every name with its own password; exactly one signup per name may win, and the log
+    // must hold exactly that winner once reopened.
+    @Test
+    void concurrentSignupsRegisterEachNameOnce() throws Exception {
+        Path file = dir.resolve("users.txt");
+        UserStore store = new UserStore(file);
+        Map<String, String> winners = new ConcurrentHashMap<>();
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                List<CompletableFuture<Void>> signups = new ArrayList<>();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_NAME; attempt++) {
+                    for (int n = 0; n < NAMES; n++) {
+                        String name = "user" + n;
+                        String password = "p" + thread + "-" + attempt;
+                        signups.add(store.register(name, password).thenAccept(won -> {
+                            if (won) {
+                                accepted.incrementAndGet();
+                                assertNull(winners.put(name, password), "second winner for " + name);
+                            }
+                        }));
+                    }
+                }
+                CompletableFuture.allOf(signups.toArray(new CompletableFuture[0])).join();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(NAMES, accepted.get());
+        assertEquals(NAMES, store.size());
+        List<String> records = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(NAMES + 1, records.size(), "header plus one record per name");
+        UserStore reopened = new UserStore(file);
+        assertEquals(NAMES, reopened.size());
+        winners.forEach((name, password) -> assertEquals(password, reopened.getPassword(name)));
+    }
+
+    @Test
+    void registerRejectsTakenName() {
+        UserStore store = new UserStore(dir.resolve("users.txt"));
+        assertTrue(store.register("amir", "1234").join());
+        assertFalse(store.register("amir", "5678").join());
+        assertEquals("1234", store.getPassword("amir"));
+    }
+
+    @Test
+    void legacyFileKeepsUnterminatedLastLine() throws Exception {
+        Path file = dir.resolve("users.txt");
+        Files.write(file, "amir,1234\nlast,9999".getBytes(StandardCharsets.UTF_8));
+        UserStore store = new UserStore(file);
+        assertEquals("9999", store.getPassword("last"));
+        assertTrue(store.register("next", "1").join());
+        UserStore reopened = new UserStore(file);
+        assertEquals(3, reopened.size());
+        assertEquals("9999", reopened.getPassword("last"));
+    }
+
+    @Test
+    void tornRecordIsCutOffInLogFormat() throws Exception {
+        Path file = dir.resolve("users.txt");
+        new UserStore(file).register("amir", "1234").join();
+        Files.write(file, "torn,12".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        UserStore reopened = new UserStore(file);
+        assertFalse(reopened.contains("torn"));
+        assertTrue(reopened.register("next", "1").join());
+        assertEquals(List.of("#users v2", "amir,1234", "next,1"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+}